@@ -2,6 +2,7 @@ fun properties(key: String) = project.findProperty(key).toString()
 
 plugins {
     id("org.jetbrains.intellij") version "1.16.1"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = properties("pluginGroup")
@@ -21,15 +22,40 @@ repositories {
     )
 }
 
+dependencies {
+    // launch plan, scheduler and test shards are tested without IDE
+    testImplementation("junit:junit:4.13.2")
+}
 
 intellij {
     pluginName.set(properties("pluginName"))
     version.set(properties("platformVersion"))
     type.set(properties("platformType"))
     downloadSources.set(properties("platformDownloadSources").toBoolean())
+    // JUnit is an optional dependency, used to split test configurations into shards
+    plugins.set(properties("platformPlugins").split(',').map(String::trim).filter(String::isNotEmpty))
     updateSinceUntilBuild.set(true)
 }
 
+// Benchmarks run outside of IDE, so they need the platform classes on the runtime classpath too
+configurations {
+    named("jmhImplementation") {
+        extendsFrom(configurations.compileOnly.get())
+    }
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    // JSON results are stable to compare between runs on CI
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("reports/jmh/results.json"))
+    properties("jmhIncludes").takeIf { it != "null" && it.isNotEmpty() }?.let {
+        includes.set(listOf(it))
+    }
+}
 
 tasks {
     // Set the JVM compatibility versions
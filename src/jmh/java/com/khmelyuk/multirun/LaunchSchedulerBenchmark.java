@@ -0,0 +1,96 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.configurations.RunConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Overhead of the {@link LaunchScheduler} for the whole launch, with stub launcher that starts each entry instantly.
+ * Divide the score by {@link #entriesCount} to get the overhead per entry.
+ * The launches are dispatched to the queue drained by the benchmark thread, so the results don't depend on thread pool.
+ *
+ * @author Ruslan Khmelyuk
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LaunchSchedulerBenchmark {
+
+    public enum Shape {
+        /** All entries are started at once. */
+        AT_ONCE,
+        /** Each entry is started after the previous one. */
+        ONE_BY_ONE,
+        /** Each entry depends on the two previous entries. */
+        DEPENDENCIES
+    }
+
+    @Param({"AT_ONCE", "ONE_BY_ONE", "DEPENDENCIES"})
+    public Shape shape;
+
+    @Param({"10", "100", "1000"})
+    public int entriesCount;
+
+    @Param({"0", "4"})
+    public int maxConcurrentStarting;
+
+    private List<RunConfiguration> configurations;
+    private Map<RunConfiguration, List<RunConfiguration>> dependencies;
+    private LaunchPlan launchPlan;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ExecutionException {
+        configurations = SyntheticRunConfigurations.create(entriesCount);
+        dependencies = new HashMap<>();
+        if (shape == Shape.DEPENDENCIES) {
+            for (int i = 2; i < entriesCount; i++) {
+                dependencies.put(configurations.get(i), List.of(configurations.get(i - 2), configurations.get(i - 1)));
+            }
+            dependencies.put(configurations.get(1), Collections.singletonList(configurations.get(0)));
+        }
+        launchPlan = buildPlan();
+    }
+
+    /** Builds the launch plan, including the check for dependency cycles. */
+    @Benchmark
+    public LaunchPlan buildPlan() throws ExecutionException {
+        return LaunchPlan.build(configurations, dependencies, shape == Shape.ONE_BY_ONE);
+    }
+
+    /** Starts all entries of the plan, releasing each one as soon as it's launched. */
+    @Benchmark
+    public boolean launch() {
+        final Queue<Runnable> dispatched = new ArrayDeque<>();
+        final AtomicBoolean done = new AtomicBoolean(false);
+        final LaunchScheduler[] scheduler = new LaunchScheduler[1];
+        // stub for the program runner, the process is started as soon as it's launched
+        final LaunchScheduler.Launcher launcher = node -> scheduler[0].release(node);
+
+        scheduler[0] = new LaunchScheduler(launchPlan, maxConcurrentStarting, dispatched::add, launcher, () -> done.set(true));
+        scheduler[0].start();
+        while (!dispatched.isEmpty()) {
+            dispatched.poll().run();
+        }
+        if (!done.get()) {
+            throw new IllegalStateException("Not all entries were started");
+        }
+        return done.get();
+    }
+}
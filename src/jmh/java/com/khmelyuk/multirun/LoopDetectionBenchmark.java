@@ -0,0 +1,108 @@
+package com.khmelyuk.multirun;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loop detection between nested multirun configurations, as done by {@link RunConfigurationHelper#containsLoopies}
+ * with the components cached in {@link MultirunGraph}. Configurations are numbers, and nested configurations are edges.
+ *
+ * @author Ruslan Khmelyuk
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LoopDetectionBenchmark {
+
+    public enum Shape {
+        /** Each configuration includes the next one. */
+        DEEP,
+        /** The first configuration includes all others. */
+        WIDE,
+        /** Layers of 4 configurations, each including all configurations of the next layer. */
+        DIAMONDS
+    }
+
+    private static final int LAYER_WIDTH = 4;
+
+    @Param({"DEEP", "WIDE", "DIAMONDS"})
+    public Shape shape;
+
+    @Param({"100", "1000"})
+    public int configurationsCount;
+
+    private List<Integer> nodes;
+    private List<List<Integer>> nested;
+    private StronglyConnectedComponents<Integer> components;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        nodes = new ArrayList<>();
+        nested = new ArrayList<>();
+        for (int i = 0; i < configurationsCount; i++) {
+            nodes.add(i);
+            nested.add(new ArrayList<>());
+        }
+        for (int i = 0; i < configurationsCount; i++) {
+            switch (shape) {
+                case DEEP:
+                    if (i + 1 < configurationsCount) {
+                        nested.get(i).add(i + 1);
+                    }
+                    break;
+                case WIDE:
+                    if (i > 0) {
+                        nested.get(0).add(i);
+                    }
+                    break;
+                case DIAMONDS:
+                    final int nextLayer = (i / LAYER_WIDTH + 1) * LAYER_WIDTH;
+                    for (int j = nextLayer; j < Math.min(nextLayer + LAYER_WIDTH, configurationsCount); j++) {
+                        nested.get(i).add(j);
+                    }
+                    break;
+            }
+        }
+        components = computeComponents();
+    }
+
+    /** Computes the components, as done after the run configurations were changed. */
+    @Benchmark
+    public StronglyConnectedComponents<Integer> computeComponents() {
+        return StronglyConnectedComponents.compute(nodes, node -> nested.get(node));
+    }
+
+    /**
+     * Checks whether adding the first configuration to the last one makes a loop, and whether the first one
+     * includes the last one, with the cached components.
+     */
+    @Benchmark
+    public void containsLoopiesCached(Blackhole blackhole) {
+        final Integer first = nodes.get(0);
+        final Integer last = nodes.get(nodes.size() - 1);
+        blackhole.consume(components.reaches(first, last));
+        blackhole.consume(components.reaches(last, first));
+    }
+
+    /** Checks the same as {@link #containsLoopiesCached}, when the components need to be computed first. */
+    @Benchmark
+    public void containsLoopiesCold(Blackhole blackhole) {
+        final StronglyConnectedComponents<Integer> components = computeComponents();
+        final Integer first = nodes.get(0);
+        final Integer last = nodes.get(nodes.size() - 1);
+        blackhole.consume(components.reaches(first, last));
+        blackhole.consume(components.reaches(last, first));
+    }
+}
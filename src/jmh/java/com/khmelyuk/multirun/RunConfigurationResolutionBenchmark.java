@@ -0,0 +1,83 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.configurations.RunConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolving the entries of multirun configuration to project run configurations, as done by
+ * {@link MultirunRunConfiguration#getRunConfigurations()}, against run manager with many configurations.
+ * Compares scanning all configurations, as it was done before the index, with the lookup in {@link RunConfigurationIndex}.
+ *
+ * @author Ruslan Khmelyuk
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RunConfigurationResolutionBenchmark {
+
+    private static final int ENTRIES_COUNT = 20;
+
+    @Param({"10", "1000", "10000"})
+    public int configurationsCount;
+
+    private List<RunConfiguration> configurations;
+    private List<RunConfigurationKey> entries;
+    private RunConfigurationIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        configurations = SyntheticRunConfigurations.create(configurationsCount);
+
+        // entries are spread over the run manager contents, the last configuration included
+        entries = new ArrayList<>();
+        for (int i = 0; i < ENTRIES_COUNT; i++) {
+            final int position = (int) ((long) (configurationsCount - 1) * i / (ENTRIES_COUNT - 1));
+            entries.add(RunConfigurationKey.of(configurations.get(position)));
+        }
+
+        index = buildIndex();
+    }
+
+    /** Resolves each entry by scanning all run configurations, as it was done before the index; the baseline. */
+    @Benchmark
+    public void scanAllConfigurations(Blackhole blackhole) {
+        for (RunConfigurationKey entry : entries) {
+            for (RunConfiguration each : configurations) {
+                if (entry.getName().equals(each.getName()) && entry.getTypeId().equals(each.getType().getId())) {
+                    blackhole.consume(each);
+                    break;
+                }
+            }
+        }
+    }
+
+    /** Resolves each entry with the index lookup. */
+    @Benchmark
+    public void lookupIndex(Blackhole blackhole) {
+        for (RunConfigurationKey entry : entries) {
+            blackhole.consume(index.find(entry));
+        }
+    }
+
+    /** Builds the index, which is done once and then kept up to date with run manager events. */
+    @Benchmark
+    public RunConfigurationIndex buildIndex() {
+        final RunConfigurationIndex result = new RunConfigurationIndex(() -> configurations);
+        // the index is built on first lookup
+        result.find(entries.get(0));
+        return result;
+    }
+}
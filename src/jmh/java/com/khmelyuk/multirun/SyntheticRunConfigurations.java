@@ -0,0 +1,81 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.configurations.ConfigurationType;
+import com.intellij.execution.configurations.RunConfiguration;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates run configurations for benchmarks, as there is no run manager outside of IDE.
+ * Only name and type of the configurations are available.
+ *
+ * @author Ruslan Khmelyuk
+ */
+final class SyntheticRunConfigurations {
+
+    private static final int TYPES_COUNT = 5;
+
+    private SyntheticRunConfigurations() {
+    }
+
+    /** Creates the configurations with unique names, spread over few configuration types. */
+    static List<RunConfiguration> create(int count) {
+        final List<ConfigurationType> types = new ArrayList<>();
+        for (int i = 0; i < TYPES_COUNT; i++) {
+            types.add(type("type" + i, "Type " + i));
+        }
+
+        final List<RunConfiguration> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(configuration("configuration " + i, types.get(i % TYPES_COUNT)));
+        }
+        return result;
+    }
+
+    static ConfigurationType type(String id, String displayName) {
+        return (ConfigurationType) Proxy.newProxyInstance(
+                SyntheticRunConfigurations.class.getClassLoader(),
+                new Class<?>[]{ConfigurationType.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getId":
+                            return id;
+                        case "getDisplayName":
+                            return displayName;
+                        default:
+                            return objectMethod(proxy, method.getName(), args, displayName);
+                    }
+                });
+    }
+
+    static RunConfiguration configuration(String name, ConfigurationType type) {
+        return (RunConfiguration) Proxy.newProxyInstance(
+                SyntheticRunConfigurations.class.getClassLoader(),
+                new Class<?>[]{RunConfiguration.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getName":
+                            return name;
+                        case "getType":
+                            return type;
+                        default:
+                            return objectMethod(proxy, method.getName(), args, name);
+                    }
+                });
+    }
+
+    private static Object objectMethod(Object proxy, String method, Object[] args, String name) {
+        switch (method) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return name;
+            default:
+                throw new UnsupportedOperationException(method);
+        }
+    }
+}
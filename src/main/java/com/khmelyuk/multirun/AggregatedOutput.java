@@ -0,0 +1,280 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.process.ProcessAdapter;
+import com.intellij.execution.process.ProcessEvent;
+import com.intellij.execution.process.ProcessHandler;
+import com.intellij.execution.process.ProcessOutputType;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Output of all processes of multirun session, split into lines and marked with their source.
+ * Only the last lines are kept in memory, in the ring buffer of fixed size; older lines are spilled to the file,
+ * so memory use doesn't grow with the number of processes and the run time.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class AggregatedOutput {
+
+    private static final Logger LOG = Logger.getInstance(AggregatedOutput.class);
+
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    /** The process or other producer of output lines. */
+    public static class Source {
+        private final String name;
+        private final int index;
+
+        private Source(String name, int index) {
+            this.name = name;
+            this.index = index;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** Gets the order the source was added in, to pick its colour. */
+        public int getIndex() {
+            return index;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    public static class Line {
+        private final Source source;
+        private final String text;
+        private final boolean error;
+        private final boolean system;
+
+        private Line(Source source, String text, boolean error, boolean system) {
+            this.source = source;
+            this.text = text;
+            this.error = error;
+            this.system = system;
+        }
+
+        public Source getSource() {
+            return source;
+        }
+
+        /** Gets the text of the line, with the line break. */
+        public String getText() {
+            return text;
+        }
+
+        public boolean isError() {
+            return error;
+        }
+
+        public boolean isSystem() {
+            return system;
+        }
+    }
+
+    public interface Listener {
+        void lineAdded(@NotNull Line line);
+    }
+
+    private final String name;
+    private final Line[] lines;
+    // index of the oldest line in the ring buffer, and the number of lines in it; guarded by this
+    private int head = 0;
+    private int size = 0;
+    private long spilledLines = 0;
+    private final Map<String, Source> sources = new LinkedHashMap<>();
+    // not terminated lines per source and output type; guarded by this
+    private final Map<String, StringBuilder> partialLines = new HashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private File spillFile;
+    private Writer spillWriter;
+    private boolean disposed = false;
+
+    public AggregatedOutput(@NotNull String name, int capacity) {
+        this.name = name;
+        this.lines = new Line[capacity];
+    }
+
+    /** Gets the source with the name, adding it if it's new. */
+    public synchronized Source getSource(@NotNull String sourceName) {
+        return sources.computeIfAbsent(sourceName, key -> new Source(key, sources.size()));
+    }
+
+    public synchronized List<Source> getSources() {
+        return new ArrayList<>(sources.values());
+    }
+
+    /** Collects the output of the process as the source with the name, until the process is terminated. */
+    public void attach(@NotNull ProcessHandler process, @NotNull String sourceName) {
+        final Source source = getSource(sourceName);
+        process.addProcessListener(new ProcessAdapter() {
+            @Override
+            public void onTextAvailable(@NotNull ProcessEvent event, @NotNull Key outputType) {
+                append(source, event.getText(), outputType);
+            }
+
+            @Override
+            public void processTerminated(@NotNull ProcessEvent event) {
+                flush(source);
+            }
+        });
+    }
+
+    /** Adds the text of the source, that's added to the buffer line by line. */
+    public void append(@NotNull Source source, @NotNull String text, @NotNull Key outputType) {
+        final boolean error = ProcessOutputType.isStderr(outputType);
+        final boolean system = !error && !ProcessOutputType.isStdout(outputType);
+        final List<Line> added = new ArrayList<>();
+        synchronized (this) {
+            if (disposed) return;
+
+            final String partialKey = source.name + (error ? ":err" : system ? ":sys" : ":out");
+            StringBuilder partial = partialLines.get(partialKey);
+            int start = 0;
+            int end;
+            while ((end = text.indexOf('\n', start)) != -1) {
+                String lineText = text.substring(start, end + 1);
+                if (partial != null && partial.length() > 0) {
+                    lineText = partial.append(lineText).toString();
+                    partial.setLength(0);
+                }
+                added.add(add(new Line(source, lineText, error, system)));
+                start = end + 1;
+            }
+            if (start < text.length()) {
+                if (partial == null) {
+                    partial = new StringBuilder();
+                    partialLines.put(partialKey, partial);
+                }
+                partial.append(text, start, text.length());
+            }
+        }
+        fireAdded(added);
+    }
+
+    /** Adds the not terminated lines of the source, when it's not going to add more. */
+    public void flush(@NotNull Source source) {
+        final List<Line> added = new ArrayList<>();
+        synchronized (this) {
+            for (String suffix : new String[]{":out", ":err", ":sys"}) {
+                final StringBuilder partial = partialLines.remove(source.name + suffix);
+                if (partial != null && partial.length() > 0 && !disposed) {
+                    added.add(add(new Line(source, partial.append('\n').toString(), suffix.equals(":err"), suffix.equals(":sys"))));
+                }
+            }
+        }
+        fireAdded(added);
+    }
+
+    private Line add(Line line) {
+        if (size == lines.length) {
+            spill(lines[head]);
+            lines[head] = line;
+            head = (head + 1) % lines.length;
+        } else {
+            lines[(head + size) % lines.length] = line;
+            size++;
+        }
+        return line;
+    }
+
+    private void fireAdded(List<Line> added) {
+        for (Line line : added) {
+            for (Listener each : listeners) {
+                each.lineAdded(line);
+            }
+        }
+    }
+
+    /** Writes the line that's removed from the ring buffer to the spill file. */
+    private void spill(Line line) {
+        try {
+            if (spillWriter == null) {
+                spillFile = FileUtil.createTempFile("multirun-" + FileUtil.sanitizeFileName(name), ".log", true);
+                spillWriter = Files.newBufferedWriter(spillFile.toPath(), StandardCharsets.UTF_8);
+            }
+            spillWriter.write('[' + line.source.name + "] " + line.text);
+            spilledLines++;
+        } catch (IOException e) {
+            LOG.warn("Failed to spill multirun output to file", e);
+        }
+    }
+
+    /** Gets the lines in the ring buffer, the oldest first. */
+    public synchronized List<Line> getLines() {
+        final List<Line> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(lines[(head + i) % lines.length]);
+        }
+        return result;
+    }
+
+    /** Gets the number of lines kept in the ring buffer. */
+    public int getCapacity() {
+        return lines.length;
+    }
+
+    public synchronized long getSpilledLines() {
+        return spilledLines;
+    }
+
+    /** Gets the file with lines that didn't fit into the ring buffer, or null if nothing was spilled yet. */
+    @Nullable
+    public synchronized File getSpillFile() {
+        if (spillWriter != null) {
+            try {
+                spillWriter.flush();
+            } catch (IOException e) {
+                LOG.warn("Failed to flush multirun output file", e);
+            }
+        }
+        return spillFile;
+    }
+
+    public void addListener(@NotNull Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(@NotNull Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Releases the buffer and deletes the spill file. */
+    public synchronized void dispose() {
+        disposed = true;
+        listeners.clear();
+        partialLines.clear();
+        Arrays.fill(lines, null);
+        size = 0;
+        if (spillWriter != null) {
+            try {
+                spillWriter.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close multirun output file", e);
+            }
+            FileUtil.delete(spillFile);
+            spillWriter = null;
+            spillFile = null;
+        }
+    }
+}
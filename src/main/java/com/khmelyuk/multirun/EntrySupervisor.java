@@ -0,0 +1,76 @@
+package com.khmelyuk.multirun;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+
+/**
+ * Keeps track of crashes of single configuration started by multirun, and decides whether and when it's restarted.
+ * Once the configuration crashed more times within the window than its restart policy allows,
+ * the circuit is opened and the configuration is not restarted anymore during the session.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class EntrySupervisor {
+
+    private final RestartPolicy policy;
+    // times of the crashes within the window, the oldest first; guarded by this
+    private final Deque<Long> crashes = new ArrayDeque<Long>();
+    private int restarts = 0;
+    private long lastCrashTime = 0;
+    private boolean circuitOpen = false;
+
+    public EntrySupervisor(RestartPolicy policy) {
+        this.policy = policy;
+    }
+
+    public boolean isEnabled() {
+        return policy.isEnabled();
+    }
+
+    /**
+     * Records the crash of the configuration.
+     *
+     * @return the delay in millis before restart, or -1 if configuration shouldn't be restarted.
+     */
+    public synchronized long crashed() {
+        if (!policy.isEnabled() || circuitOpen) {
+            return -1;
+        }
+
+        final long now = System.currentTimeMillis();
+        lastCrashTime = now;
+        crashes.addLast(now);
+        final long windowStart = now - (long) (policy.getWindow() * 1000);
+        while (!crashes.isEmpty() && crashes.peekFirst() < windowStart) {
+            crashes.removeFirst();
+        }
+
+        if (crashes.size() > policy.getMaxRestarts()) {
+            circuitOpen = true;
+            return -1;
+        }
+        restarts++;
+        return policy.getDelayMillis(crashes.size());
+    }
+
+    public synchronized int getRestarts() {
+        return restarts;
+    }
+
+    public synchronized boolean isCircuitOpen() {
+        return circuitOpen;
+    }
+
+    /** Gets the short description of restarts, to show on the configuration tab. */
+    public synchronized String getStatus() {
+        final String lastCrash = lastCrashTime != 0
+                ? ", last crash at " + new SimpleDateFormat("HH:mm:ss").format(new Date(lastCrashTime))
+                : "";
+        if (circuitOpen) {
+            return "gave up after " + restarts + " restarts" + lastCrash;
+        }
+        return (restarts == 1 ? "restarted once" : "restarted " + restarts + " times") + lastCrash;
+    }
+}
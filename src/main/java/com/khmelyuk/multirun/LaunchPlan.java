@@ -0,0 +1,519 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.configurations.RunConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The graph of run configurations to start by multirun configuration.
+ * Each node is started as soon as all the nodes it depends on have been started.
+ * Nested groups, like multirun configurations inside of multirun configuration, are expanded into the same graph,
+ * so each run configuration is started once, even if it's included into few groups.
+ * Test run configuration split into shards is represented by the node per shard, and the shards are started at once.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class LaunchPlan {
+
+    /** Run configurations that are started together, in the order defined by the group. */
+    public interface Group {
+
+        List<RunConfiguration> getRunConfigurations();
+
+        /** Gets the run configurations of the group that should be started before the specified one. */
+        List<RunConfiguration> getDependencies(RunConfiguration configuration);
+
+        /** Whether each configuration depends on previous one, if there are no declared dependencies in the group. */
+        boolean isStartOneByOne();
+
+        @NotNull
+        ReadinessProbe getReadinessProbe(RunConfiguration configuration);
+
+        @NotNull
+        RestartPolicy getRestartPolicy(RunConfiguration configuration);
+
+        /** Gets the stages of the group in the order they are started, or empty list if the group has no stages. */
+        List<LaunchStage> getStages();
+
+        /** Gets the stage the run configuration is started in, or null if the group has no stages. */
+        @Nullable
+        LaunchStage getStage(RunConfiguration configuration);
+
+        /** Gets the number of shards to split the test run configuration into, or 1 if it's not split. */
+        int getShards(RunConfiguration configuration);
+
+        /** Gets the group to expand the run configuration into, or null if the configuration is started as it is. */
+        @Nullable
+        Group getNestedGroup(RunConfiguration configuration);
+    }
+
+    private final List<Node> nodes;
+    private final List<Node> roots;
+    private final List<RunConfiguration> expanded;
+
+    private LaunchPlan(List<Node> nodes, List<RunConfiguration> expanded) {
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.expanded = Collections.unmodifiableList(expanded);
+
+        final List<Node> roots = new ArrayList<Node>();
+        for (Node each : nodes) {
+            if (each.dependencies.isEmpty()) {
+                roots.add(each);
+            }
+        }
+        this.roots = Collections.unmodifiableList(roots);
+    }
+
+    /**
+     * Builds the launch plan for the list of run configurations.
+     * If any of configurations has declared dependencies, then only declared dependencies are used to order the start.
+     * Otherwise, each configuration depends on previous one if configurations are started one by one,
+     * or nothing if all configurations are started at once.
+     */
+    public static LaunchPlan build(final List<RunConfiguration> configurations,
+                                   final Map<RunConfiguration, List<RunConfiguration>> dependencies,
+                                   final boolean startOneByOne) throws ExecutionException {
+        return build(new Group() {
+            @Override
+            public List<RunConfiguration> getRunConfigurations() {
+                return configurations;
+            }
+
+            @Override
+            public List<RunConfiguration> getDependencies(RunConfiguration configuration) {
+                final List<RunConfiguration> result = dependencies.get(configuration);
+                return result != null ? result : Collections.<RunConfiguration>emptyList();
+            }
+
+            @Override
+            public boolean isStartOneByOne() {
+                return startOneByOne;
+            }
+
+            @NotNull
+            @Override
+            public ReadinessProbe getReadinessProbe(RunConfiguration configuration) {
+                return ReadinessProbe.NONE;
+            }
+
+            @NotNull
+            @Override
+            public RestartPolicy getRestartPolicy(RunConfiguration configuration) {
+                return RestartPolicy.NONE;
+            }
+
+            @Override
+            public List<LaunchStage> getStages() {
+                return Collections.emptyList();
+            }
+
+            @Nullable
+            @Override
+            public LaunchStage getStage(RunConfiguration configuration) {
+                return null;
+            }
+
+            @Override
+            public int getShards(RunConfiguration configuration) {
+                return 1;
+            }
+
+            @Nullable
+            @Override
+            public Group getNestedGroup(RunConfiguration configuration) {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Builds the launch plan for the group, with nested groups expanded.
+     * The nested group is started when the run configurations it depends on are started,
+     * and the run configurations that depend on the nested group are started when all its configurations are started.
+     * If the group has stages, each stage depends on all configurations of the previous one,
+     * while configurations inside of the stage are started at once, unless they have declared dependencies.
+     */
+    public static LaunchPlan build(Group group) throws ExecutionException {
+        final Builder builder = new Builder();
+        builder.add(group);
+
+        final LaunchPlan plan = new LaunchPlan(builder.all, builder.expanded);
+        plan.checkNoCycles();
+        return plan;
+    }
+
+    /** Nodes of the group or single run configuration, that are started first and that are released last. */
+    private static class Segment {
+        final List<Node> first = new ArrayList<Node>();
+        final List<Node> last = new ArrayList<Node>();
+
+        boolean isEmpty() {
+            return first.isEmpty();
+        }
+    }
+
+    private static class Builder {
+        final List<Node> all = new ArrayList<Node>();
+        // nodes of each run configuration, which are few if configuration is split into shards
+        final Map<RunConfiguration, List<Node>> nodes = new LinkedHashMap<RunConfiguration, List<Node>>();
+        final List<RunConfiguration> expanded = new ArrayList<RunConfiguration>();
+        // groups that are being expanded, to detect the group that includes itself
+        final Set<Group> expanding = Collections.newSetFromMap(new IdentityHashMap<Group, Boolean>());
+
+        Segment add(Group group) throws ExecutionException {
+            if (!expanding.add(group)) {
+                throw new ExecutionException("Multirun configurations include each other");
+            }
+
+            final Map<RunConfiguration, Segment> entries = new LinkedHashMap<RunConfiguration, Segment>();
+            for (RunConfiguration each : group.getRunConfigurations()) {
+                if (entries.containsKey(each)) {
+                    continue;
+                }
+                final Group nestedGroup = group.getNestedGroup(each);
+                if (nestedGroup != null) {
+                    if (!expanded.contains(each)) {
+                        expanded.add(each);
+                    }
+                    entries.put(each, add(nestedGroup));
+                } else {
+                    entries.put(each, add(each, group.getShards(each), group.getReadinessProbe(each), group.getRestartPolicy(each),
+                                          group.getStage(each)));
+                }
+            }
+
+            boolean hasDependencies = false;
+            for (RunConfiguration each : entries.keySet()) {
+                if (!group.getDependencies(each).isEmpty()) {
+                    hasDependencies = true;
+                    break;
+                }
+            }
+
+            // the entries that have no dependencies and no dependents inside of the group
+            final Set<Segment> starting = Collections.newSetFromMap(new IdentityHashMap<Segment, Boolean>());
+            final Set<Segment> finishing = Collections.newSetFromMap(new IdentityHashMap<Segment, Boolean>());
+            for (Segment each : entries.values()) {
+                if (!each.isEmpty()) {
+                    starting.add(each);
+                    finishing.add(each);
+                }
+            }
+
+            Segment previous = null;
+            for (Map.Entry<RunConfiguration, Segment> entry : entries.entrySet()) {
+                final Segment segment = entry.getValue();
+                if (segment.isEmpty()) {
+                    // nothing to wait for, or to start
+                    continue;
+                }
+                if (hasDependencies) {
+                    for (RunConfiguration each : group.getDependencies(entry.getKey())) {
+                        final Segment dependency = entries.get(each);
+                        if (dependency != null && dependency != segment && !dependency.isEmpty()) {
+                            link(dependency, segment);
+                            finishing.remove(dependency);
+                            starting.remove(segment);
+                        }
+                    }
+                } else if (group.getStages().isEmpty() && group.isStartOneByOne() && previous != null) {
+                    link(previous, segment);
+                    finishing.remove(previous);
+                    starting.remove(segment);
+                }
+                previous = segment;
+            }
+
+            linkStages(group, entries, starting, finishing);
+
+            final Segment result = new Segment();
+            for (Segment each : entries.values()) {
+                if (starting.contains(each)) {
+                    addAllNew(result.first, each.first);
+                }
+                if (finishing.contains(each)) {
+                    addAllNew(result.last, each.last);
+                }
+            }
+
+            expanding.remove(group);
+            return result;
+        }
+
+        /** Makes the entries of each stage depend on all entries of the previous stage, which has any entries. */
+        private static void linkStages(Group group, Map<RunConfiguration, Segment> entries,
+                                       Set<Segment> starting, Set<Segment> finishing) {
+            List<Segment> previousStage = Collections.emptyList();
+            for (LaunchStage stage : group.getStages()) {
+                final List<Segment> currentStage = new ArrayList<Segment>();
+                for (Map.Entry<RunConfiguration, Segment> entry : entries.entrySet()) {
+                    if (group.getStage(entry.getKey()) == stage && !entry.getValue().isEmpty()) {
+                        currentStage.add(entry.getValue());
+                    }
+                }
+                if (currentStage.isEmpty()) {
+                    continue;
+                }
+                for (Segment dependency : previousStage) {
+                    for (Segment dependent : currentStage) {
+                        if (dependency != dependent) {
+                            link(dependency, dependent);
+                            finishing.remove(dependency);
+                            starting.remove(dependent);
+                        }
+                    }
+                }
+                previousStage = currentStage;
+            }
+        }
+
+        Segment add(RunConfiguration configuration, int shards, ReadinessProbe readinessProbe, RestartPolicy restartPolicy,
+                    @Nullable LaunchStage stage) {
+            List<Node> configurationNodes = nodes.get(configuration);
+            if (configurationNodes == null) {
+                // the configuration included into few groups is split as the first group asks
+                configurationNodes = new ArrayList<Node>();
+                final TestShards testShards = shards > 1 ? new TestShards(configuration, shards) : null;
+                for (int i = 0; i < Math.max(1, shards); i++) {
+                    final Node node = new Node(all.size(), configuration);
+                    if (testShards != null) {
+                        node.setShard(testShards, i);
+                    }
+                    all.add(node);
+                    configurationNodes.add(node);
+                }
+                nodes.put(configuration, configurationNodes);
+            }
+
+            final Segment result = new Segment();
+            for (Node node : configurationNodes) {
+                if (node.readinessProbe.isNone()) {
+                    // the configuration included into few groups is ready when the first found probe is satisfied
+                    node.setReadinessProbe(readinessProbe);
+                }
+                if (!node.restartPolicy.isEnabled()) {
+                    // and is restarted if any of the groups asks for it
+                    node.restartPolicy = restartPolicy;
+                }
+                if (node.stage == null) {
+                    node.stage = stage;
+                }
+                result.first.add(node);
+                result.last.add(node);
+            }
+            return result;
+        }
+
+        private static void link(Segment dependency, Segment dependent) {
+            for (Node first : dependent.first) {
+                for (Node last : dependency.last) {
+                    if (first != last) {
+                        LaunchPlan.link(last, first);
+                    }
+                }
+            }
+        }
+
+        private static void addAllNew(List<Node> target, List<Node> nodes) {
+            for (Node each : nodes) {
+                if (!target.contains(each)) {
+                    target.add(each);
+                }
+            }
+        }
+    }
+
+    private static void link(Node dependency, Node dependent) {
+        if (!dependent.dependencies.contains(dependency)) {
+            dependent.dependencies.add(dependency);
+            dependency.dependents.add(dependent);
+        }
+    }
+
+    private void checkNoCycles() throws ExecutionException {
+        final int[] pending = new int[nodes.size()];
+        final Deque<Node> queue = new ArrayDeque<Node>(roots);
+        for (Node each : nodes) {
+            pending[each.index] = each.dependencies.size();
+        }
+
+        int visited = 0;
+        while (!queue.isEmpty()) {
+            final Node node = queue.poll();
+            visited++;
+            for (Node each : node.dependents) {
+                if (--pending[each.index] == 0) {
+                    queue.add(each);
+                }
+            }
+        }
+
+        if (visited != nodes.size()) {
+            final StringBuilder names = new StringBuilder();
+            for (Node each : nodes) {
+                if (pending[each.index] > 0) {
+                    if (names.length() > 0) {
+                        names.append(", ");
+                    }
+                    names.append('\'').append(each.configuration.getName()).append('\'');
+                }
+            }
+            throw new ExecutionException("Run configurations depend on each other: " + names);
+        }
+    }
+
+    /**
+     * Gets the plan to start only the specified nodes of this plan, and the nodes that depend on them if asked.
+     * Dependencies between the included nodes are kept, while dependencies on the rest of nodes are dropped,
+     * as those are expected to be running already.
+     */
+    public LaunchPlan subset(Collection<Node> selected, boolean withDependents) {
+        final Set<Node> included = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+        final Deque<Node> queue = new ArrayDeque<Node>(selected);
+        while (!queue.isEmpty()) {
+            final Node node = queue.poll();
+            if (included.add(node) && withDependents) {
+                queue.addAll(node.dependents);
+            }
+        }
+
+        final Map<Node, Node> copies = new LinkedHashMap<Node, Node>();
+        final Map<TestShards, TestShards> shardCopies = new IdentityHashMap<TestShards, TestShards>();
+        for (Node each : nodes) {
+            if (included.contains(each)) {
+                final Node copy = new Node(copies.size(), each.configuration);
+                copy.readinessProbe = each.readinessProbe;
+                copy.restartPolicy = each.restartPolicy;
+                copy.stage = each.stage;
+                if (each.shards != null) {
+                    // the started again shards run the same test classes as before
+                    copy.setShard(shardCopies.computeIfAbsent(each.shards, TestShards::copy), each.shard);
+                }
+                copies.put(each, copy);
+            }
+        }
+        for (Map.Entry<Node, Node> entry : copies.entrySet()) {
+            for (Node each : entry.getKey().dependencies) {
+                final Node dependency = copies.get(each);
+                if (dependency != null) {
+                    link(dependency, entry.getValue());
+                }
+            }
+        }
+        return new LaunchPlan(new ArrayList<Node>(copies.values()), Collections.<RunConfiguration>emptyList());
+    }
+
+    /** Gets the run configurations that were expanded into the nested groups, like nested multirun configurations. */
+    public List<RunConfiguration> getExpanded() {
+        return expanded;
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    /** Gets nodes without dependencies, that can be started right away. */
+    public List<Node> getRoots() {
+        return roots;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    public static class Node {
+        private final int index;
+        private final RunConfiguration configuration;
+        private final List<Node> dependencies = new ArrayList<Node>();
+        private final List<Node> dependents = new ArrayList<Node>();
+        private ReadinessProbe readinessProbe = ReadinessProbe.NONE;
+        private RestartPolicy restartPolicy = RestartPolicy.NONE;
+        private LaunchStage stage;
+        private TestShards shards;
+        private int shard;
+
+        private Node(int index, RunConfiguration configuration) {
+            this.index = index;
+            this.configuration = configuration;
+        }
+
+        private void setShard(TestShards shards, int shard) {
+            this.shards = shards;
+            this.shard = shard;
+            shards.addShard();
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public RunConfiguration getConfiguration() {
+            return configuration;
+        }
+
+        public List<Node> getDependencies() {
+            return Collections.unmodifiableList(dependencies);
+        }
+
+        public List<Node> getDependents() {
+            return Collections.unmodifiableList(dependents);
+        }
+
+        public ReadinessProbe getReadinessProbe() {
+            return readinessProbe;
+        }
+
+        void setReadinessProbe(ReadinessProbe readinessProbe) {
+            this.readinessProbe = readinessProbe != null ? readinessProbe : ReadinessProbe.NONE;
+        }
+
+        public RestartPolicy getRestartPolicy() {
+            return restartPolicy;
+        }
+
+        /** Gets the stage the node is started in, or null if it's not part of any stage. */
+        @Nullable
+        public LaunchStage getStage() {
+            return stage;
+        }
+
+        /** Gets the shards of test configuration this node is part of, or null if the configuration is not split. */
+        @Nullable
+        public TestShards getShards() {
+            return shards;
+        }
+
+        /** Gets the index of shard this node starts, from 0. */
+        public int getShard() {
+            return shard;
+        }
+
+        /** Gets the name of run configuration, with the shard number if it's split into shards. */
+        public String getName() {
+            return shards != null
+                    ? configuration.getName() + " [" + (shard + 1) + "/" + shards.getCount() + "]"
+                    : configuration.getName();
+        }
+
+        @Override
+        public String toString() {
+            return getName();
+        }
+    }
+}
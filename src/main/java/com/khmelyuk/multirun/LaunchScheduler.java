@@ -0,0 +1,168 @@
+package com.khmelyuk.multirun;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Starts the nodes of launch plan as their dependencies are released,
+ * keeping no more than allowed number of nodes starting at once.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class LaunchScheduler {
+
+    /** Launches the node; the launcher must eventually call {@link #release(LaunchPlan.Node)} for it. */
+    public interface Launcher {
+        void launch(@NotNull LaunchPlan.Node node);
+    }
+
+    private final LaunchPlan launchPlan;
+    private final int maxConcurrentStarting;
+    private final Executor dispatcher;
+    private final Launcher launcher;
+    private final Runnable onAllReleased;
+
+    // number of not released dependencies per launch plan node
+    private final AtomicIntegerArray pendingDependencies;
+    // 1 if launch plan node is released, so its dependents can be started
+    private final AtomicIntegerArray released;
+    private final AtomicInteger releasedCounter = new AtomicInteger(0);
+    // 1 if launch plan node has been dispatched to the launcher, so it takes the starting slot
+    private final AtomicIntegerArray dispatched;
+    // 1 if launch plan node has completed starting, so it doesn't take the starting slot anymore
+    private final AtomicIntegerArray startingDone;
+    // nodes with all dependencies released, that wait for the free starting slot; guarded by itself
+    private final Queue<LaunchPlan.Node> waitingToStart;
+    private int startingCounter = 0;
+    private volatile boolean cancelled = false;
+
+    /**
+     * @param launchPlan            the plan to start.
+     * @param maxConcurrentStarting max number of nodes starting at once, or 0 if there is no limit.
+     * @param dispatcher            executor to launch the nodes with.
+     * @param launcher              launches the node.
+     * @param onAllReleased         called once all nodes are released.
+     */
+    public LaunchScheduler(@NotNull LaunchPlan launchPlan,
+                           int maxConcurrentStarting,
+                           @NotNull Executor dispatcher,
+                           @NotNull Launcher launcher,
+                           @NotNull Runnable onAllReleased) {
+        this(launchPlan, maxConcurrentStarting, Comparator.comparingInt(LaunchPlan.Node::getIndex), dispatcher, launcher, onAllReleased);
+    }
+
+    /**
+     * @param order the order to start the nodes in, when more nodes can be started than there are free starting slots.
+     */
+    public LaunchScheduler(@NotNull LaunchPlan launchPlan,
+                           int maxConcurrentStarting,
+                           @NotNull Comparator<LaunchPlan.Node> order,
+                           @NotNull Executor dispatcher,
+                           @NotNull Launcher launcher,
+                           @NotNull Runnable onAllReleased) {
+        this.launchPlan = launchPlan;
+        this.waitingToStart = new PriorityQueue<LaunchPlan.Node>(order);
+        this.maxConcurrentStarting = maxConcurrentStarting;
+        this.dispatcher = dispatcher;
+        this.launcher = launcher;
+        this.onAllReleased = onAllReleased;
+
+        this.pendingDependencies = new AtomicIntegerArray(launchPlan.size());
+        this.released = new AtomicIntegerArray(launchPlan.size());
+        this.dispatched = new AtomicIntegerArray(launchPlan.size());
+        this.startingDone = new AtomicIntegerArray(launchPlan.size());
+        for (LaunchPlan.Node each : launchPlan.getNodes()) {
+            pendingDependencies.set(each.getIndex(), each.getDependencies().size());
+        }
+    }
+
+    /** Starts the roots of launch plan, in the order of the scheduler. */
+    public void start() {
+        if (launchPlan.isEmpty()) {
+            onAllReleased.run();
+            return;
+        }
+        startNodes(launchPlan.getRoots());
+    }
+
+    /** Starts the nodes, or queues them if there are already as many configurations starting as allowed. */
+    private void startNodes(final List<LaunchPlan.Node> nodes) {
+        final List<LaunchPlan.Node> nodesToStart = new ArrayList<LaunchPlan.Node>();
+        synchronized (waitingToStart) {
+            waitingToStart.addAll(nodes);
+            while (!waitingToStart.isEmpty() && (cancelled || maxConcurrentStarting <= 0 || startingCounter < maxConcurrentStarting)) {
+                final LaunchPlan.Node node = waitingToStart.poll();
+                dispatched.set(node.getIndex(), 1);
+                nodesToStart.add(node);
+                startingCounter++;
+            }
+        }
+        for (LaunchPlan.Node each : nodesToStart) {
+            dispatcher.execute(() -> launcher.launch(each));
+        }
+    }
+
+    /**
+     * Dispatches all waiting nodes right away, without waiting for free starting slots,
+     * so the launcher can release them without launching.
+     */
+    public void cancel() {
+        cancelled = true;
+        startNodes(Collections.<LaunchPlan.Node>emptyList());
+    }
+
+    /**
+     * Frees the starting slot taken by the node, when the node is started, became ready or failed to start,
+     * so the next waiting node can be started.
+     */
+    public void doneStarting(final LaunchPlan.Node node) {
+        if (!startingDone.compareAndSet(node.getIndex(), 0, 1)) {
+            return;
+        }
+        synchronized (waitingToStart) {
+            startingCounter--;
+        }
+        startNodes(Collections.<LaunchPlan.Node>emptyList());
+    }
+
+    /** Whether the node was dispatched to the launcher already, either to be launched or skipped. */
+    public boolean isDispatched(LaunchPlan.Node node) {
+        return dispatched.get(node.getIndex()) == 1;
+    }
+
+    public boolean isReleased(LaunchPlan.Node node) {
+        return released.get(node.getIndex()) == 1;
+    }
+
+    /**
+     * Marks the node as released, so the configurations that depend on it can be started.
+     * Each node is released only once, either when it's started or when it failed to start.
+     */
+    public void release(final LaunchPlan.Node node) {
+        if (!released.compareAndSet(node.getIndex(), 0, 1)) {
+            return;
+        }
+        doneStarting(node);
+
+        final List<LaunchPlan.Node> readyToStart = new ArrayList<LaunchPlan.Node>();
+        for (LaunchPlan.Node each : node.getDependents()) {
+            if (pendingDependencies.decrementAndGet(each.getIndex()) == 0) {
+                readyToStart.add(each);
+            }
+        }
+        startNodes(readyToStart);
+
+        if (releasedCounter.incrementAndGet() == launchPlan.size()) {
+            onAllReleased.run();
+        }
+    }
+}
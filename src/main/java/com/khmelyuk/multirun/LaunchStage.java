@@ -0,0 +1,59 @@
+package com.khmelyuk.multirun;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The named stage of multirun configuration. Configurations of the stage are started at once, and the next stage is started
+ * only when all configurations of this stage are ready or have exited, or the stage timeout has expired.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class LaunchStage {
+
+    private final String name;
+    private final double timeout;
+    private final MultirunSession.FailurePolicy failurePolicy;
+
+    /**
+     * @param name          the name of stage, unique within multirun configuration.
+     * @param timeout       time in seconds for all configurations of the stage to become ready, or 0 if there is no limit.
+     * @param failurePolicy what to do when configuration of the stage fails, or the stage timeout expires.
+     */
+    public LaunchStage(@NotNull String name, double timeout, @NotNull MultirunSession.FailurePolicy failurePolicy) {
+        this.name = name;
+        this.timeout = timeout;
+        this.failurePolicy = failurePolicy;
+    }
+
+    @NotNull
+    public String getName() {
+        return name;
+    }
+
+    public double getTimeout() {
+        return timeout;
+    }
+
+    @NotNull
+    public MultirunSession.FailurePolicy getFailurePolicy() {
+        return failurePolicy;
+    }
+
+    /** Checks the stage is correct, and returns the problem description if it's not. */
+    @Nullable
+    public String validate() {
+        if (name.trim().isEmpty()) {
+            return "Stage name should not be empty";
+        }
+        if (timeout < 0) {
+            return "Timeout of stage '" + name + "' should not be negative";
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
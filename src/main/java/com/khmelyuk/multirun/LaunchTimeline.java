@@ -0,0 +1,148 @@
+package com.khmelyuk.multirun;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timestamps of launching each entry of multirun session, to find where the startup time goes.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class LaunchTimeline {
+
+    public enum Event {
+        RESOLVED("Resolved"),
+        VALIDATED("Validated"),
+        DISPATCHED("Dispatched"),
+        PROCESS_STARTED("Process Started"),
+        START_NOTIFIED("Start Notified"),
+        READY("Ready"),
+        TERMINATED("Terminated");
+
+        private final String displayName;
+
+        Event(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    public static class Entry {
+        private final String name;
+        private final int order;
+        private final AtomicLongArray times = new AtomicLongArray(Event.values().length);
+        private volatile Integer exitCode;
+
+        private Entry(String name, int order) {
+            this.name = name;
+            this.order = order;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** Gets time of the event in millis, or 0 if it didn't happen. */
+        public long getTime(Event event) {
+            return times.get(event.ordinal());
+        }
+
+        @Nullable
+        public Integer getExitCode() {
+            return exitCode;
+        }
+    }
+
+    private final String name;
+    private final long startTime = System.currentTimeMillis();
+    private final Map<LaunchPlan.Node, Entry> entries = new ConcurrentHashMap<>();
+    private final Runnable onChange;
+
+    LaunchTimeline(String name, Runnable onChange) {
+        this.name = name;
+        this.onChange = onChange;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /** Records the time of event for the node, unless it was recorded already. */
+    public void mark(@NotNull LaunchPlan.Node node, @NotNull Event event) {
+        if (getEntry(node).times.compareAndSet(event.ordinal(), 0, System.currentTimeMillis())) {
+            onChange.run();
+        }
+    }
+
+    /** Gets time of the event for the node in millis, or 0 if it didn't happen. */
+    public long getTime(@NotNull LaunchPlan.Node node, @NotNull Event event) {
+        return getEntry(node).getTime(event);
+    }
+
+    public void markTerminated(@NotNull LaunchPlan.Node node, int exitCode) {
+        getEntry(node).exitCode = exitCode;
+        mark(node, Event.TERMINATED);
+    }
+
+    private Entry getEntry(LaunchPlan.Node node) {
+        return entries.computeIfAbsent(node, each -> new Entry(each.getName(), each.getIndex()));
+    }
+
+    /** Gets the entries in launch plan order. */
+    public List<Entry> getEntries() {
+        final List<Entry> result = new ArrayList<>(entries.values());
+        result.sort((first, second) -> Integer.compare(first.order, second.order));
+        return result;
+    }
+
+    /** Gets the timeline as JSON, with times in millis since the session start. */
+    public String toJson() {
+        final JsonObject session = new JsonObject();
+        session.addProperty("name", name);
+        session.addProperty("startTime", startTime);
+
+        final JsonArray entriesJson = new JsonArray();
+        for (Entry entry : getEntries()) {
+            final JsonObject entryJson = new JsonObject();
+            entryJson.addProperty("name", entry.name);
+            for (Event event : Event.values()) {
+                final long time = entry.getTime(event);
+                if (time != 0) {
+                    entryJson.addProperty(toJsonName(event), time - startTime);
+                }
+            }
+            if (entry.exitCode != null) {
+                entryJson.addProperty("exitCode", entry.exitCode);
+            }
+            entriesJson.add(entryJson);
+        }
+        session.add("entries", entriesJson);
+        return new GsonBuilder().setPrettyPrinting().create().toJson(session);
+    }
+
+    private static String toJsonName(Event event) {
+        final String[] words = event.name().toLowerCase().split("_");
+        final StringBuilder result = new StringBuilder(words[0]);
+        for (int i = 1; i < words.length; i++) {
+            result.append(Character.toUpperCase(words[i].charAt(0))).append(words[i].substring(1));
+        }
+        return result.toString();
+    }
+}
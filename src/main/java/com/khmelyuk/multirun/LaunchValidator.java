@@ -0,0 +1,118 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.ExecutionTarget;
+import com.intellij.execution.ExecutionTargetManager;
+import com.intellij.execution.Executor;
+import com.intellij.execution.RunnerAndConfigurationSettings;
+import com.intellij.execution.RunnerRegistry;
+import com.intellij.execution.configurations.RunConfiguration;
+import com.intellij.execution.configurations.RuntimeConfigurationError;
+import com.intellij.execution.configurations.RuntimeConfigurationException;
+import com.intellij.execution.impl.RunManagerImpl;
+import com.intellij.execution.impl.RunnerAndConfigurationSettingsImpl;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.project.IndexNotReadyException;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Checks all configurations of the launch plan at once, before any of them is started,
+ * so the broken configuration doesn't leave the others half-started.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class LaunchValidator {
+
+    /** The reason why the configuration can't be started. */
+    public static class Problem {
+        private final LaunchPlan.Node node;
+        private final String message;
+
+        Problem(LaunchPlan.Node node, String message) {
+            this.node = node;
+            this.message = message;
+        }
+
+        public LaunchPlan.Node getNode() {
+            return node;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    private final Project project;
+    private final Executor executor;
+    private final LaunchTimeline timeline;
+
+    public LaunchValidator(Project project, Executor executor, LaunchTimeline timeline) {
+        this.project = project;
+        this.executor = executor;
+        this.timeline = timeline;
+    }
+
+    /**
+     * Checks the configurations of the launch plan in parallel. Waits for the checks to complete,
+     * so must be called on the background thread.
+     *
+     * @return the problems of configurations in launch plan order, or empty list if all can be started.
+     */
+    public List<Problem> validate(LaunchPlan launchPlan) {
+        final ExecutionTarget target = ExecutionTargetManager.getActiveTarget(project);
+        final List<CompletableFuture<Problem>> checks = new ArrayList<>();
+        for (LaunchPlan.Node each : launchPlan.getNodes()) {
+            checks.add(CompletableFuture.supplyAsync(
+                    () -> ReadAction.compute(() -> check(each, target)),
+                    command -> ApplicationManager.getApplication().executeOnPooledThread(command)));
+        }
+
+        final List<Problem> result = new ArrayList<>();
+        for (CompletableFuture<Problem> each : checks) {
+            final Problem problem = each.join();
+            if (problem != null) {
+                result.add(problem);
+            }
+        }
+        return result;
+    }
+
+    /** Checks the configuration of the node again, after user has edited it. Should be called in read action. */
+    @Nullable
+    public Problem check(LaunchPlan.Node node) {
+        return check(node, ExecutionTargetManager.getActiveTarget(project));
+    }
+
+    @Nullable
+    private Problem check(LaunchPlan.Node node, ExecutionTarget target) {
+        final RunConfiguration configuration = node.getConfiguration();
+        if (RunnerRegistry.getInstance().getRunner(executor.getId(), configuration) == null) {
+            return new Problem(node, "Cannot be started with " + executor.getActionName());
+        }
+        timeline.mark(node, LaunchTimeline.Event.RESOLVED);
+
+        if (!ExecutionTargetManager.canRun(configuration, target)) {
+            return new Problem(node, "Cannot run on '" + target.getDisplayName() + "'");
+        }
+
+        // same check as RunManagerImpl.canRunConfiguration, but keeps the error message
+        final RunnerAndConfigurationSettings settings = new RunnerAndConfigurationSettingsImpl(
+                RunManagerImpl.getInstanceImpl(project), configuration, false);
+        try {
+            settings.checkSettings(executor);
+        } catch (IndexNotReadyException e) {
+            return new Problem(node, "Cannot be checked while indexing is in progress");
+        } catch (RuntimeConfigurationError e) {
+            return new Problem(node, e.getLocalizedMessage());
+        } catch (RuntimeConfigurationException e) {
+            // warnings don't prevent the start
+        }
+        timeline.mark(node, LaunchTimeline.Event.VALIDATED);
+        return null;
+    }
+}
@@ -0,0 +1,131 @@
+package com.khmelyuk.multirun;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Dispatches the launches of scheduler one at a time, holding the next launch while the machine is busy with the
+ * configurations started before, like JVMs that are still warming up, or while there is not enough free memory.
+ * The launch is held no longer than the max wait, so the busy machine only slows the launch down.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class LoadAwareDispatcher implements Executor {
+
+    public static final long CHECK_INTERVAL_MILLIS = 500;
+    // the machine is not treated as busy with started configurations if they use less CPUs than this
+    private static final double MIN_PROCESSES_CPU = 0.5;
+    private static final double MIN_AVAILABLE_MEMORY = 0.1;
+
+    private final Executor delegate;
+    private final ScheduledExecutorService timers;
+    private final SystemLoad load;
+    private final double cpuThreshold;
+    private final long maxWaitMillis;
+    private final BooleanSupplier throttled;
+    private final Consumer<String> log;
+
+    // launches waiting to be dispatched; guarded by this
+    private final Queue<Runnable> waiting = new ArrayDeque<Runnable>();
+    private boolean checking = false;
+    private long heldSince = 0;
+
+    /**
+     * @param delegate      executor to run the launches with.
+     * @param timers        executor to schedule the load checks with.
+     * @param load          the load of machine and of started configurations.
+     * @param cpuThreshold  the busy fraction of CPUs to hold the next launch at, from 0 to 1.
+     * @param maxWaitMillis max time to hold each launch for.
+     * @param throttled     whether launches are held; once it's false, the waiting launches are dispatched right away.
+     * @param log           receives the messages about held launches.
+     */
+    public LoadAwareDispatcher(@NotNull Executor delegate,
+                               @NotNull ScheduledExecutorService timers,
+                               @NotNull SystemLoad load,
+                               double cpuThreshold,
+                               long maxWaitMillis,
+                               @NotNull BooleanSupplier throttled,
+                               @NotNull Consumer<String> log) {
+        this.delegate = delegate;
+        this.timers = timers;
+        this.load = load;
+        this.cpuThreshold = cpuThreshold;
+        this.maxWaitMillis = maxWaitMillis;
+        this.throttled = throttled;
+        this.log = log;
+        // the first sample only remembers the counters, so the load is known by the time the second launch comes
+        load.sample();
+    }
+
+    @Override
+    public void execute(@NotNull Runnable command) {
+        synchronized (this) {
+            waiting.add(command);
+            if (checking) {
+                return;
+            }
+            checking = true;
+        }
+        timers.execute(this::check);
+    }
+
+    /** Dispatches the next waiting launch if the machine is not busy, and checks again after the interval. */
+    private void check() {
+        final SystemLoad.Sample sample = load.sample();
+        final long now = System.currentTimeMillis();
+        Runnable next = null;
+        String message = null;
+        synchronized (this) {
+            if (!throttled.getAsBoolean()) {
+                // launching has stopped, so the rest of launches only have to be skipped
+                while (!waiting.isEmpty()) {
+                    delegate.execute(waiting.poll());
+                }
+                checking = false;
+                return;
+            }
+
+            final boolean busy = isBusy(sample);
+            if (!busy || (heldSince != 0 && now - heldSince >= maxWaitMillis)) {
+                if (busy) {
+                    message = "Starting next configuration after waiting " + (now - heldSince)
+                            + " ms, the machine is still busy: " + sample;
+                }
+                next = waiting.poll();
+                heldSince = 0;
+            } else if (heldSince == 0) {
+                heldSince = now;
+                message = "Holding next configuration until the machine is less busy: " + sample;
+            }
+            if (next == null && waiting.isEmpty()) {
+                checking = false;
+                return;
+            }
+        }
+
+        if (message != null) {
+            log.accept(message);
+        }
+        if (next != null) {
+            delegate.execute(next);
+        }
+        // the started configuration gets time to load the machine before the next one is considered
+        timers.schedule(this::check, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Whether the machine is busy with the started configurations, or doesn't have enough free memory. */
+    private boolean isBusy(SystemLoad.Sample sample) {
+        if (sample.getAvailableMemory() >= 0 && sample.getAvailableMemory() < MIN_AVAILABLE_MEMORY) {
+            return true;
+        }
+        // waiting doesn't help if the machine is busy with something else than the started configurations
+        return sample.getCpu() >= cpuThreshold && sample.getProcessesCpu() >= MIN_PROCESSES_CPU;
+    }
+}
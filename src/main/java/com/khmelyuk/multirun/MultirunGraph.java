@@ -0,0 +1,144 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.RunManager;
+import com.intellij.execution.RunManagerListener;
+import com.intellij.execution.RunnerAndConfigurationSettings;
+import com.intellij.execution.configurations.ConfigurationTypeUtil;
+import com.intellij.execution.configurations.RunConfiguration;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The graph of multirun configurations that include other multirun configurations in the project.
+ * Strongly connected components are computed once and cached, so checking for loops is a lookup.
+ * The cached nested configurations are invalidated only for the changed multirun configurations.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class MultirunGraph implements Disposable {
+
+    private final Project project;
+    // nested multirun configurations per multirun configuration
+    private final Map<RunConfigurationKey, List<RunConfigurationKey>> nested = new HashMap<>();
+    // keys the multirun configurations were added to graph with, to find renamed ones
+    private final Map<RunConfiguration, RunConfigurationKey> keys = new IdentityHashMap<>();
+    private StronglyConnectedComponents<RunConfigurationKey> components;
+
+    public MultirunGraph(Project project) {
+        this.project = project;
+
+        project.getMessageBus().connect(this).subscribe(RunManagerListener.TOPIC, new RunManagerListener() {
+            @Override
+            public void runConfigurationAdded(@NotNull RunnerAndConfigurationSettings settings) {
+                if (settings.getConfiguration() instanceof MultirunRunConfiguration) {
+                    // nested configurations referencing this one are resolved now
+                    invalidateAll();
+                }
+            }
+
+            @Override
+            public void runConfigurationRemoved(@NotNull RunnerAndConfigurationSettings settings) {
+                if (settings.getConfiguration() instanceof MultirunRunConfiguration) {
+                    invalidateAll();
+                }
+            }
+
+            @Override
+            public void runConfigurationChanged(@NotNull RunnerAndConfigurationSettings settings) {
+                final RunConfiguration configuration = settings.getConfiguration();
+                if (configuration instanceof MultirunRunConfiguration) {
+                    invalidate((MultirunRunConfiguration) configuration);
+                }
+            }
+
+            @Override
+            public void stateLoaded(@NotNull RunManager runManager, boolean isFirstLoadState) {
+                invalidateAll();
+            }
+        });
+    }
+
+    public static MultirunGraph getInstance(@NotNull Project project) {
+        return project.getService(MultirunGraph.class);
+    }
+
+    /** Checks whether the multirun configuration includes the target configuration, directly or through nested ones. */
+    public boolean reaches(@NotNull MultirunRunConfiguration configuration, @NotNull MultirunRunConfiguration target) {
+        return getComponents().reaches(RunConfigurationKey.of(configuration), RunConfigurationKey.of(target));
+    }
+
+    /** Checks whether the multirun configuration is a part of loop of nested multirun configurations. */
+    public boolean isInLoop(@NotNull MultirunRunConfiguration configuration) {
+        return getComponents().isInCycle(RunConfigurationKey.of(configuration));
+    }
+
+    /**
+     * Forgets the nested configurations of the changed multirun configuration.
+     * Components are recomputed on next check, using cached nested configurations of other multirun configurations.
+     */
+    public synchronized void invalidate(@NotNull MultirunRunConfiguration configuration) {
+        final RunConfigurationKey key = RunConfigurationKey.of(configuration);
+        final RunConfigurationKey oldKey = keys.put(configuration, key);
+        if (oldKey != null && !oldKey.equals(key)) {
+            // renamed, so configurations that include it by old name are changed too
+            invalidateAll();
+            return;
+        }
+        nested.remove(key);
+        components = null;
+    }
+
+    private synchronized void invalidateAll() {
+        nested.clear();
+        keys.clear();
+        components = null;
+    }
+
+    private synchronized StronglyConnectedComponents<RunConfigurationKey> getComponents() {
+        if (components == null) {
+            final List<RunConfigurationKey> nodes = new ArrayList<>();
+            final MultirunConfigurationType type = ConfigurationTypeUtil.findConfigurationType(MultirunConfigurationType.class);
+            for (RunConfiguration each : RunManager.getInstance(project).getConfigurationsList(type)) {
+                final RunConfigurationKey key = RunConfigurationKey.of(each);
+                keys.put(each, key);
+                nodes.add(key);
+            }
+            components = StronglyConnectedComponents.compute(nodes, this::getNested);
+        }
+        return components;
+    }
+
+    private List<RunConfigurationKey> getNested(RunConfigurationKey key) {
+        return nested.computeIfAbsent(key, k -> {
+            final RunConfiguration configuration = RunConfigurationIndex.getInstance(project).find(k);
+            if (configuration instanceof MultirunRunConfiguration) {
+                return resolveNested((MultirunRunConfiguration) configuration);
+            }
+            return Collections.emptyList();
+        });
+    }
+
+    private List<RunConfigurationKey> resolveNested(MultirunRunConfiguration configuration) {
+        final RunConfigurationIndex index = RunConfigurationIndex.getInstance(project);
+        final List<RunConfigurationKey> result = new ArrayList<>();
+        for (RunConfigurationKey each : configuration.getRunConfigurationKeys()) {
+            if (index.find(each) instanceof MultirunRunConfiguration) {
+                result.add(each);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void dispose() {
+        invalidateAll();
+    }
+}
@@ -0,0 +1,56 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.process.ProcessHandler;
+import com.intellij.execution.process.ProcessOutputTypes;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.OutputStream;
+
+/**
+ * Process handler of the whole multirun session. It's terminated when all processes of the session are terminated,
+ * with the worst exit code of them, and destroying it stops all processes of the session.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class MultirunProcessHandler extends ProcessHandler {
+
+    private final MultirunSession session;
+
+    public MultirunProcessHandler(@NotNull MultirunSession session) {
+        this.session = session;
+        session.getTermination().thenAccept(this::notifyProcessTerminated);
+    }
+
+    public MultirunSession getSession() {
+        return session;
+    }
+
+    /** Prints the message about the session to the multirun console. */
+    public void print(@NotNull String message) {
+        notifyTextAvailable(message + "\n", ProcessOutputTypes.SYSTEM);
+    }
+
+    @Override
+    protected void destroyProcessImpl() {
+        // terminated when all processes are stopped
+        session.stop();
+    }
+
+    @Override
+    protected void detachProcessImpl() {
+        // processes of the session keep running
+        notifyProcessDetached();
+    }
+
+    @Override
+    public boolean detachIsDefault() {
+        return false;
+    }
+
+    @Nullable
+    @Override
+    public OutputStream getProcessInput() {
+        return null;
+    }
+}
@@ -0,0 +1,119 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.ProgramRunnerUtil;
+import com.intellij.execution.RunManager;
+import com.intellij.execution.RunnerAndConfigurationSettings;
+import com.intellij.execution.configurations.ModuleRunProfile;
+import com.intellij.execution.configurations.RunConfiguration;
+import com.intellij.execution.runners.ExecutionEnvironment;
+import com.intellij.execution.runners.ExecutionEnvironmentBuilder;
+import com.intellij.execution.runners.ExecutionUtil;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.roots.CompilerModuleExtension;
+import com.intellij.openapi.roots.OrderEnumerator;
+import com.intellij.openapi.vfs.VfsUtilCore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Starts the part of launch plan of previous multirun session again, leaving the running configurations alone.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class MultirunRerun {
+
+    private static final Logger LOG = Logger.getInstance(MultirunRerun.class);
+
+    private MultirunRerun() {
+    }
+
+    /** Starts the plan as new session of the same multirun configuration, with the same executor. Must be called on EDT. */
+    public static void launch(MultirunSession session, LaunchPlan launchPlan) {
+        final MultirunRunConfiguration configuration = session.getConfiguration();
+        final RunnerAndConfigurationSettings settings = RunManager.getInstance(session.getProject()).findSettings(configuration);
+        try {
+            final ExecutionEnvironment environment = settings != null
+                    ? ExecutionEnvironmentBuilder.create(session.getExecutor(), settings).build()
+                    : ExecutionEnvironmentBuilder.create(session.getExecutor(), configuration).build();
+            environment.putUserData(MultirunRunConfiguration.RERUN_PLAN, launchPlan);
+            ProgramRunnerUtil.executeConfiguration(environment, false, true);
+        } catch (ExecutionException e) {
+            ExecutionUtil.handleExecutionError(session.getProject(), session.getExecutor().getToolWindowId(), configuration, e);
+        }
+    }
+
+    /**
+     * Checks whether the modules of configuration, or the modules they depend on, were compiled after the time.
+     * Configurations that don't tell their modules are never considered changed.
+     * Walks the compiler output directories, so must be called on the background thread.
+     */
+    public static boolean isRebuiltSince(RunConfiguration configuration, long time) {
+        if (!(configuration instanceof ModuleRunProfile)) {
+            return false;
+        }
+        final Module[] modules = ((ModuleRunProfile) configuration).getModules();
+        for (Path each : ReadAction.compute(() -> getOutputDirectories(modules))) {
+            if (isModifiedSince(each, time)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Path> getOutputDirectories(Module[] modules) {
+        final Set<String> urls = new LinkedHashSet<>();
+        for (Module module : modules) {
+            if (module.isDisposed()) {
+                continue;
+            }
+            OrderEnumerator.orderEntries(module).recursively().withoutSdk().withoutLibraries().runtimeOnly().forEachModule(each -> {
+                final CompilerModuleExtension extension = CompilerModuleExtension.getInstance(each);
+                if (extension != null) {
+                    if (extension.getCompilerOutputUrl() != null) {
+                        urls.add(extension.getCompilerOutputUrl());
+                    }
+                    if (extension.getCompilerOutputUrlForTests() != null) {
+                        urls.add(extension.getCompilerOutputUrlForTests());
+                    }
+                }
+                return true;
+            });
+        }
+
+        final List<Path> result = new ArrayList<>();
+        for (String each : urls) {
+            result.add(Paths.get(VfsUtilCore.urlToPath(each)));
+        }
+        return result;
+    }
+
+    private static boolean isModifiedSince(Path directory, long time) {
+        if (!Files.isDirectory(directory)) {
+            return false;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.anyMatch(each -> {
+                try {
+                    return Files.isRegularFile(each) && Files.getLastModifiedTime(each).toMillis() > time;
+                } catch (IOException e) {
+                    return false;
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            LOG.warn("Failed to check compiler output " + directory, e);
+            return false;
+        }
+    }
+}
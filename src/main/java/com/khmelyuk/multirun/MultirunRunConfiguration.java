@@ -1,13 +1,14 @@
 package com.khmelyuk.multirun;
 
+import com.intellij.execution.ExecutionException;
 import com.intellij.execution.Executor;
-import com.intellij.execution.RunManager;
 import com.intellij.execution.configurations.*;
 import com.intellij.execution.runners.ExecutionEnvironment;
 import com.intellij.execution.runners.ProgramRunner;
 import com.intellij.openapi.options.SettingsEditor;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.InvalidDataException;
+import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.WriteExternalException;
 import com.khmelyuk.multirun.ui.MultirunRunConfigurationEditor;
 import org.jdom.Element;
@@ -15,9 +16,12 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
-public class MultirunRunConfiguration extends RunConfigurationBase implements RunnerSettings {
+public class MultirunRunConfiguration extends RunConfigurationBase implements RunnerSettings, LaunchPlan.Group {
 
     public static final String PROP_SEPARATE_TABS = "separateTabs";
     public static final String PROP_REUSE_TABS_WITH_FAILURE = "reuseTabsWithFailures";
@@ -25,55 +29,286 @@ public class MultirunRunConfiguration extends RunConfigurationBase implements Ru
     public static final String PROP_MARK_FAILED_PROCESS = "markFailedProcess";
     public static final String PROP_HIDE_SUCCESS_PROCESS = "hideSuccessProcess";
     public static final String PROP_DELAY_TIME = "delayTime";
+    public static final String PROP_MAX_CONCURRENT_STARTING = "maxConcurrentStarting";
+    public static final String PROP_STOP_ORDER = "stopOrder";
+    public static final String PROP_STOP_TIMEOUT = "stopTimeout";
+    public static final String PROP_FAILURE_POLICY = "failurePolicy";
+    public static final String PROP_SHARE_BEFORE_RUN_TASKS = "shareBeforeRunTasks";
+    public static final String PROP_SKIP_RUNNING = "skipRunning";
+    public static final String PROP_AGGREGATE_OUTPUT = "aggregateOutput";
+    public static final String PROP_CAPTURE_LOGS = "captureLogs";
+    public static final String PROP_OPTIMIZE_ORDER = "optimizeOrder";
+    public static final String PROP_ADAPTIVE_LAUNCH = "adaptiveLaunch";
+    public static final String PROP_LOAD_THRESHOLD = "loadThreshold";
+    public static final String PROP_MAX_LOAD_WAIT = "maxLoadWait";
+    public static final String PROP_MONITOR_RESOURCES = "monitorResources";
+    public static final String PROP_MONITOR_INTERVAL = "monitorInterval";
+    public static final String PROP_CPU_WARNING = "cpuWarning";
+    public static final String PROP_MEMORY_WARNING = "memoryWarning";
+    public static final String PROP_DEPENDS_ON = "dependsOn";
+    public static final String PROP_READINESS = "readiness";
+    public static final String PROP_RESTART = "restart";
+    public static final String PROP_STAGE = "stage";
+    public static final String PROP_SHARDS = "shards";
+
+    /** The part of launch plan of previous session to start again, instead of the whole configuration. */
+    public static final Key<LaunchPlan> RERUN_PLAN = Key.create("multirun.rerunPlan");
+
+    /** Limits the number of configurations starting at once to number of available processors. */
+    public static final int MAX_CONCURRENT_STARTING_AUTO = -1;
 
     private double delayTime = 0;
+    private int maxConcurrentStarting = 0;
+    private MultirunStopper.StopOrder stopOrder = MultirunStopper.StopOrder.PARALLEL;
+    private double stopTimeout = 10;
+    private MultirunSession.FailurePolicy failurePolicy = MultirunSession.FailurePolicy.CONTINUE;
     private boolean reuseTabs = true;
     private boolean reuseTabsWithFailure = false;
     private boolean startOneByOne = true;
     private boolean markFailedProcess = true;
     private boolean hideSuccessProcess = false;
+    // enabled for new configurations only, see readExternal
+    private boolean shareBeforeRunTasks = true;
+    private boolean skipRunning = false;
+    private boolean aggregateOutput = false;
+    private boolean captureLogs = false;
+    private boolean optimizeOrder = false;
+    private boolean adaptiveLaunch = false;
+    private int loadThreshold = 80;
+    private double maxLoadWait = 30;
+    private boolean monitorResources = false;
+    private double monitorInterval = 5;
+    private int cpuWarning = 0;
+    private int memoryWarning = 0;
     private List<RunConfigurationInternal> runConfigurations = new ArrayList<RunConfigurationInternal>();
+    private List<LaunchStage> stages = new ArrayList<LaunchStage>();
 
     public MultirunRunConfiguration(Project project, ConfigurationFactory factory, String name) {
         super(project, factory, name);
     }
 
+    @Override
     public List<RunConfiguration> getRunConfigurations() {
         final List<RunConfiguration> result = new ArrayList<RunConfiguration>();
-        final List<RunConfiguration> allConfigurations = RunManager.getInstance(getProject()).getAllConfigurationsList();
+        final RunConfigurationIndex index = RunConfigurationIndex.getInstance(getProject());
         for (RunConfigurationInternal runConfiguration : runConfigurations) {
-            for (RunConfiguration configuration : allConfigurations) {
-                if (configuration.getName().equals(runConfiguration.name) &&
-                        configuration.getType().getDisplayName().equals(runConfiguration.type)) {
-                    if (configuration instanceof MultirunRunConfiguration) {
-                        if (configuration.equals(this)) {
-                            // exclude itself
-                            break;
-                        }
-                        if (RunConfigurationHelper.containsLoopies((MultirunRunConfiguration) configuration, this)) {
-                            // disallow adding multirun configuration that causes looping
-                            break;
-                        }
-                    }
-                    result.add(configuration);
-                    break;
-                }
+            final RunConfiguration configuration = findConfiguration(index, runConfiguration);
+            if (configuration != null) {
+                result.add(configuration);
             }
         }
         return result;
     }
 
+    /** Gets the keys of run configurations included into this multirun configuration, even if they can't be resolved. */
+    public List<RunConfigurationKey> getRunConfigurationKeys() {
+        final List<RunConfigurationKey> result = new ArrayList<RunConfigurationKey>();
+        for (RunConfigurationInternal each : runConfigurations) {
+            result.add(each.getKey());
+        }
+        return result;
+    }
+
+    private RunConfiguration findConfiguration(RunConfigurationIndex index, RunConfigurationInternal runConfiguration) {
+        final RunConfiguration configuration = index.find(runConfiguration.getKey());
+        if (configuration instanceof MultirunRunConfiguration) {
+            if (configuration.equals(this)) {
+                // exclude itself
+                return null;
+            }
+            if (RunConfigurationHelper.containsLoopies((MultirunRunConfiguration) configuration, this)) {
+                // disallow adding multirun configuration that causes looping
+                return null;
+            }
+        }
+        return configuration;
+    }
+
     public void setRunConfigurations(List<RunConfiguration> runConfigurations) {
+        final List<RunConfigurationInternal> oldRunConfigurations = this.runConfigurations;
         this.runConfigurations = new ArrayList<RunConfigurationInternal>();
         if (runConfigurations == null) {
             return;
         }
 
         for (RunConfiguration configuration : runConfigurations) {
-            this.runConfigurations.add(new RunConfigurationInternal(configuration.getName(), configuration.getType().getDisplayName()));
+            final RunConfigurationInternal runConfiguration = new RunConfigurationInternal(configuration);
+            final int oldIndex = oldRunConfigurations.indexOf(runConfiguration);
+            if (oldIndex != -1) {
+                // keep the dependencies of configuration that is still in the list
+                runConfiguration.dependsOn.addAll(oldRunConfigurations.get(oldIndex).dependsOn);
+                runConfiguration.readinessProbe = oldRunConfigurations.get(oldIndex).readinessProbe;
+                runConfiguration.restartPolicy = oldRunConfigurations.get(oldIndex).restartPolicy;
+                runConfiguration.stage = oldRunConfigurations.get(oldIndex).stage;
+                runConfiguration.shards = oldRunConfigurations.get(oldIndex).shards;
+            }
+            this.runConfigurations.add(runConfiguration);
+        }
+        for (RunConfigurationInternal each : this.runConfigurations) {
+            // forget dependencies on configurations that were removed from the list
+            each.dependsOn.retainAll(this.runConfigurations);
+        }
+    }
+
+    /** Gets the run configurations from this multirun configuration, that should be started before the specified one. */
+    @Override
+    public List<RunConfiguration> getDependencies(RunConfiguration configuration) {
+        final List<RunConfiguration> result = new ArrayList<RunConfiguration>();
+        final int index = runConfigurations.indexOf(new RunConfigurationInternal(configuration));
+        if (index == -1) {
+            return result;
+        }
+
+        final RunConfigurationIndex configurationIndex = RunConfigurationIndex.getInstance(getProject());
+        for (RunConfigurationInternal each : runConfigurations.get(index).dependsOn) {
+            final RunConfiguration dependency = findConfiguration(configurationIndex, each);
+            if (dependency != null) {
+                result.add(dependency);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sets the run configurations that should be started before the specified one.
+     * Dependencies that aren't part of this multirun configuration are ignored.
+     */
+    public void setDependencies(RunConfiguration configuration, List<RunConfiguration> dependencies) {
+        final int index = runConfigurations.indexOf(new RunConfigurationInternal(configuration));
+        if (index == -1) {
+            return;
+        }
+
+        final RunConfigurationInternal runConfiguration = runConfigurations.get(index);
+        runConfiguration.dependsOn.clear();
+        if (dependencies == null) {
+            return;
+        }
+        for (RunConfiguration each : dependencies) {
+            final RunConfigurationInternal dependency = new RunConfigurationInternal(each);
+            if (!dependency.equals(runConfiguration) && runConfigurations.contains(dependency)) {
+                runConfiguration.dependsOn.add(dependency);
+            }
+        }
+    }
+
+    /** Gets the condition when the run configuration from this multirun configuration is treated as ready. */
+    @NotNull
+    @Override
+    public ReadinessProbe getReadinessProbe(RunConfiguration configuration) {
+        final int index = runConfigurations.indexOf(new RunConfigurationInternal(configuration));
+        return index != -1 ? runConfigurations.get(index).readinessProbe : ReadinessProbe.NONE;
+    }
+
+    public void setReadinessProbe(RunConfiguration configuration, ReadinessProbe readinessProbe) {
+        final int index = runConfigurations.indexOf(new RunConfigurationInternal(configuration));
+        if (index != -1) {
+            runConfigurations.get(index).readinessProbe = readinessProbe != null ? readinessProbe : ReadinessProbe.NONE;
+        }
+    }
+
+    /** Gets how the run configuration from this multirun configuration is restarted when it crashes. */
+    @NotNull
+    @Override
+    public RestartPolicy getRestartPolicy(RunConfiguration configuration) {
+        final int index = runConfigurations.indexOf(new RunConfigurationInternal(configuration));
+        return index != -1 ? runConfigurations.get(index).restartPolicy : RestartPolicy.NONE;
+    }
+
+    public void setRestartPolicy(RunConfiguration configuration, RestartPolicy restartPolicy) {
+        final int index = runConfigurations.indexOf(new RunConfigurationInternal(configuration));
+        if (index != -1) {
+            runConfigurations.get(index).restartPolicy = restartPolicy != null ? restartPolicy : RestartPolicy.NONE;
+        }
+    }
+
+    @Override
+    public List<LaunchStage> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    /**
+     * Sets the stages in the order they are started.
+     * Configurations of the stages that were removed are moved to the first stage.
+     */
+    public void setStages(List<LaunchStage> stages) {
+        this.stages = stages != null ? new ArrayList<LaunchStage>(stages) : new ArrayList<LaunchStage>();
+        for (RunConfigurationInternal each : runConfigurations) {
+            if (findStage(each.stage) == null) {
+                each.stage = null;
+            }
         }
     }
 
+    /**
+     * Gets the stage the run configuration from this multirun configuration is started in.
+     * Configurations without the stage are started in the first one.
+     */
+    @Nullable
+    @Override
+    public LaunchStage getStage(RunConfiguration configuration) {
+        if (stages.isEmpty()) {
+            return null;
+        }
+        final int index = runConfigurations.indexOf(new RunConfigurationInternal(configuration));
+        final LaunchStage stage = index != -1 ? findStage(runConfigurations.get(index).stage) : null;
+        return stage != null ? stage : stages.get(0);
+    }
+
+    public void setStage(RunConfiguration configuration, @Nullable LaunchStage stage) {
+        final int index = runConfigurations.indexOf(new RunConfigurationInternal(configuration));
+        if (index != -1) {
+            runConfigurations.get(index).stage = stage != null ? stage.getName() : null;
+        }
+    }
+
+    @Nullable
+    private LaunchStage findStage(String name) {
+        for (LaunchStage each : stages) {
+            if (each.getName().equals(name)) {
+                return each;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the number of shards to split the test run configuration from this multirun configuration into.
+     * Configurations that can't be split, like the ones that don't run tests, are started as they are.
+     */
+    @Override
+    public int getShards(RunConfiguration configuration) {
+        final int index = runConfigurations.indexOf(new RunConfigurationInternal(configuration));
+        if (index == -1 || runConfigurations.get(index).shards <= 1) {
+            return 1;
+        }
+        return TestSharder.find(configuration) != null ? runConfigurations.get(index).shards : 1;
+    }
+
+    public void setShards(RunConfiguration configuration, int shards) {
+        final int index = runConfigurations.indexOf(new RunConfigurationInternal(configuration));
+        if (index != -1) {
+            runConfigurations.get(index).shards = Math.max(1, shards);
+        }
+    }
+
+    /** Nested multirun configurations are expanded into the launch plan of this one. */
+    @Nullable
+    @Override
+    public LaunchPlan.Group getNestedGroup(RunConfiguration configuration) {
+        return configuration instanceof MultirunRunConfiguration ? (MultirunRunConfiguration) configuration : null;
+    }
+
+    /** Checks whether any of the run configurations have declared dependencies. */
+    public boolean hasDependencies() {
+        for (RunConfigurationInternal each : runConfigurations) {
+            if (!each.dependsOn.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public boolean isReuseTabs() {
         return reuseTabs;
     }
@@ -90,6 +325,7 @@ public class MultirunRunConfiguration extends RunConfigurationBase implements Ru
         this.reuseTabsWithFailure = reuseTabs;
     }
 
+    @Override
     public boolean isStartOneByOne() {
         return startOneByOne;
     }
@@ -114,6 +350,117 @@ public class MultirunRunConfiguration extends RunConfigurationBase implements Ru
         this.hideSuccessProcess = hideSuccessProcess;
     }
 
+    /** Whether before launch tasks of all configurations are run once, before starting them. */
+    public boolean isShareBeforeRunTasks() {
+        return shareBeforeRunTasks;
+    }
+
+    public void setShareBeforeRunTasks(boolean shareBeforeRunTasks) {
+        this.shareBeforeRunTasks = shareBeforeRunTasks;
+    }
+
+    /** Whether configurations that are running already are left alone, so only the missing ones are started. */
+    public boolean isSkipRunning() {
+        return skipRunning;
+    }
+
+    public void setSkipRunning(boolean skipRunning) {
+        this.skipRunning = skipRunning;
+    }
+
+    /** Whether the output of all configurations is shown in the multirun tab too, keeping only the last lines in memory. */
+    public boolean isAggregateOutput() {
+        return aggregateOutput;
+    }
+
+    public void setAggregateOutput(boolean aggregateOutput) {
+        this.aggregateOutput = aggregateOutput;
+    }
+
+    /** Whether the output of each configuration is captured into the file, to be searched and viewed later. */
+    public boolean isCaptureLogs() {
+        return captureLogs;
+    }
+
+    public void setCaptureLogs(boolean captureLogs) {
+        this.captureLogs = captureLogs;
+    }
+
+    /**
+     * Whether configurations that can start at once are started in the order learned from their startup history,
+     * the ones on the longest chain of slow configurations first, instead of the listed order.
+     */
+    public boolean isOptimizeOrder() {
+        return optimizeOrder;
+    }
+
+    public void setOptimizeOrder(boolean optimizeOrder) {
+        this.optimizeOrder = optimizeOrder;
+    }
+
+    /** Whether the next configuration is held while the machine is busy with the configurations started before. */
+    public boolean isAdaptiveLaunch() {
+        return adaptiveLaunch;
+    }
+
+    public void setAdaptiveLaunch(boolean adaptiveLaunch) {
+        this.adaptiveLaunch = adaptiveLaunch;
+    }
+
+    /** Gets the CPU usage in percents, the next configuration is held at when adaptive launch is on. */
+    public int getLoadThreshold() {
+        return loadThreshold;
+    }
+
+    public void setLoadThreshold(int loadThreshold) {
+        this.loadThreshold = Math.max(1, Math.min(100, loadThreshold));
+    }
+
+    /** Gets the max time in seconds to hold each configuration for, when adaptive launch is on. */
+    public double getMaxLoadWait() {
+        return maxLoadWait;
+    }
+
+    public void setMaxLoadWait(double maxLoadWait) {
+        this.maxLoadWait = Math.max(0, maxLoadWait);
+    }
+
+    /** Whether CPU and memory used by the processes are sampled, and shown in their tabs. */
+    public boolean isMonitorResources() {
+        return monitorResources;
+    }
+
+    public void setMonitorResources(boolean monitorResources) {
+        this.monitorResources = monitorResources;
+    }
+
+    /** Gets the time in seconds between the samples of resources used by the processes. */
+    public double getMonitorInterval() {
+        return monitorInterval;
+    }
+
+    public void setMonitorInterval(double monitorInterval) {
+        this.monitorInterval = Math.max(0.5, monitorInterval);
+    }
+
+    /** Gets the CPU usage in percents of single CPU, the tab of process using more is marked at, or 0 to not mark. */
+    public int getCpuWarning() {
+        return cpuWarning;
+    }
+
+    public void setCpuWarning(int cpuWarning) {
+        this.cpuWarning = Math.max(0, cpuWarning);
+    }
+
+    /** Gets the resident memory in megabytes, the tab of process using more is marked at, or 0 to not mark. */
+    public int getMemoryWarning() {
+        return memoryWarning;
+    }
+
+    public void setMemoryWarning(int memoryWarning) {
+        this.memoryWarning = Math.max(0, memoryWarning);
+    }
+
     public double getDelayTime() {
         return delayTime;
     }
@@ -122,6 +469,65 @@ public class MultirunRunConfiguration extends RunConfigurationBase implements Ru
         this.delayTime = delayTime;
     }
 
+    /**
+     * Gets the max number of configurations that are starting at once, i.e. started but not ready yet.
+     * 0 means no limit, {@link #MAX_CONCURRENT_STARTING_AUTO} means the limit is the number of processors.
+     */
+    public int getMaxConcurrentStarting() {
+        return maxConcurrentStarting;
+    }
+
+    public void setMaxConcurrentStarting(int maxConcurrentStarting) {
+        this.maxConcurrentStarting = maxConcurrentStarting;
+    }
+
+    public MultirunStopper.StopOrder getStopOrder() {
+        return stopOrder;
+    }
+
+    public void setStopOrder(MultirunStopper.StopOrder stopOrder) {
+        this.stopOrder = stopOrder != null ? stopOrder : MultirunStopper.StopOrder.PARALLEL;
+    }
+
+    /** Gets the time in seconds to wait for process to stop, before killing it. 0 means to wait without killing. */
+    public double getStopTimeout() {
+        return stopTimeout;
+    }
+
+    public void setStopTimeout(double stopTimeout) {
+        this.stopTimeout = stopTimeout;
+    }
+
+    /**
+     * Gets what to do when configuration exits with non-zero code, doesn't become ready or fails to start,
+     * while the multirun is starting.
+     */
+    public MultirunSession.FailurePolicy getFailurePolicy() {
+        return failurePolicy;
+    }
+
+    public void setFailurePolicy(MultirunSession.FailurePolicy failurePolicy) {
+        this.failurePolicy = failurePolicy != null ? failurePolicy : MultirunSession.FailurePolicy.CONTINUE;
+    }
+
+    @Override
+    public MultirunRunConfiguration clone() {
+        final MultirunRunConfiguration clone = (MultirunRunConfiguration) super.clone();
+        clone.runConfigurations = new ArrayList<RunConfigurationInternal>();
+        for (RunConfigurationInternal each : runConfigurations) {
+            final RunConfigurationInternal runConfiguration = new RunConfigurationInternal(each.name, each.type, each.typeId);
+            runConfiguration.dependsOn.addAll(each.dependsOn);
+            runConfiguration.readinessProbe = each.readinessProbe;
+            runConfiguration.restartPolicy = each.restartPolicy;
+            runConfiguration.stage = each.stage;
+            runConfiguration.shards = each.shards;
+            clone.runConfigurations.add(runConfiguration);
+        }
+        // stages are immutable, so they can be shared
+        clone.stages = new ArrayList<LaunchStage>(stages);
+        return clone;
+    }
+
     @Override
     public SettingsEditor<? extends RunConfiguration> getConfigurationEditor() {
         return new MultirunRunConfigurationEditor(getProject());
@@ -146,20 +552,107 @@ public class MultirunRunConfiguration extends RunConfigurationBase implements Ru
         if (element.getAttributeValue(PROP_HIDE_SUCCESS_PROCESS) != null) {
             hideSuccessProcess = Boolean.parseBoolean(element.getAttributeValue(PROP_HIDE_SUCCESS_PROCESS));
         }
+        if (element.getAttributeValue(PROP_SHARE_BEFORE_RUN_TASKS) != null) {
+            shareBeforeRunTasks = Boolean.parseBoolean(element.getAttributeValue(PROP_SHARE_BEFORE_RUN_TASKS));
+        } else {
+            // configurations saved before the option was added keep running before launch tasks of each configuration
+            shareBeforeRunTasks = false;
+        }
+        if (element.getAttributeValue(PROP_SKIP_RUNNING) != null) {
+            skipRunning = Boolean.parseBoolean(element.getAttributeValue(PROP_SKIP_RUNNING));
+        }
+        if (element.getAttributeValue(PROP_AGGREGATE_OUTPUT) != null) {
+            aggregateOutput = Boolean.parseBoolean(element.getAttributeValue(PROP_AGGREGATE_OUTPUT));
+        }
+        if (element.getAttributeValue(PROP_CAPTURE_LOGS) != null) {
+            captureLogs = Boolean.parseBoolean(element.getAttributeValue(PROP_CAPTURE_LOGS));
+        }
+        if (element.getAttributeValue(PROP_OPTIMIZE_ORDER) != null) {
+            optimizeOrder = Boolean.parseBoolean(element.getAttributeValue(PROP_OPTIMIZE_ORDER));
+        }
+        if (element.getAttributeValue(PROP_ADAPTIVE_LAUNCH) != null) {
+            adaptiveLaunch = Boolean.parseBoolean(element.getAttributeValue(PROP_ADAPTIVE_LAUNCH));
+        }
+        if (element.getAttributeValue(PROP_LOAD_THRESHOLD) != null) {
+            setLoadThreshold(Integer.parseInt(element.getAttributeValue(PROP_LOAD_THRESHOLD)));
+        }
+        if (element.getAttributeValue(PROP_MAX_LOAD_WAIT) != null) {
+            setMaxLoadWait(Double.parseDouble(element.getAttributeValue(PROP_MAX_LOAD_WAIT)));
+        }
+        if (element.getAttributeValue(PROP_MONITOR_RESOURCES) != null) {
+            monitorResources = Boolean.parseBoolean(element.getAttributeValue(PROP_MONITOR_RESOURCES));
+        }
+        if (element.getAttributeValue(PROP_MONITOR_INTERVAL) != null) {
+            setMonitorInterval(Double.parseDouble(element.getAttributeValue(PROP_MONITOR_INTERVAL)));
+        }
+        if (element.getAttributeValue(PROP_CPU_WARNING) != null) {
+            setCpuWarning(Integer.parseInt(element.getAttributeValue(PROP_CPU_WARNING)));
+        }
+        if (element.getAttributeValue(PROP_MEMORY_WARNING) != null) {
+            setMemoryWarning(Integer.parseInt(element.getAttributeValue(PROP_MEMORY_WARNING)));
+        }
         if (element.getAttributeValue(PROP_DELAY_TIME) != null) {
             delayTime = Double.parseDouble(element.getAttributeValue(PROP_DELAY_TIME));
         }
+        if (element.getAttributeValue(PROP_MAX_CONCURRENT_STARTING) != null) {
+            maxConcurrentStarting = Integer.parseInt(element.getAttributeValue(PROP_MAX_CONCURRENT_STARTING));
+        }
+        if (element.getAttributeValue(PROP_STOP_ORDER) != null) {
+            try {
+                stopOrder = MultirunStopper.StopOrder.valueOf(element.getAttributeValue(PROP_STOP_ORDER));
+            } catch (IllegalArgumentException ignored) {
+                stopOrder = MultirunStopper.StopOrder.PARALLEL;
+            }
+        }
+        if (element.getAttributeValue(PROP_STOP_TIMEOUT) != null) {
+            stopTimeout = Double.parseDouble(element.getAttributeValue(PROP_STOP_TIMEOUT));
+        }
+        if (element.getAttributeValue(PROP_FAILURE_POLICY) != null) {
+            try {
+                failurePolicy = MultirunSession.FailurePolicy.valueOf(element.getAttributeValue(PROP_FAILURE_POLICY));
+            } catch (IllegalArgumentException ignored) {
+                failurePolicy = MultirunSession.FailurePolicy.CONTINUE;
+            }
+        }
 
         for (Object each : element.getContent()) {
             if (!(each instanceof Element)) {
                 continue;
             }
             final Element eachElement = (Element) each;
+            if (eachElement.getName().equals(PROP_STAGE)) {
+                final LaunchStage stage = readStage(eachElement);
+                if (stage != null && findStage(stage.getName()) == null) {
+                    stages.add(stage);
+                }
+                continue;
+            }
             if (!eachElement.getName().equals("runConfiguration")) {
                 continue;
             }
-            runConfigurations.add(new RunConfigurationInternal(eachElement.getAttributeValue("name"),
-                                                               eachElement.getAttributeValue("type")));
+            final RunConfigurationInternal runConfiguration = new RunConfigurationInternal(eachElement.getAttributeValue("name"),
+                                                                                           eachElement.getAttributeValue("type"),
+                                                                                           eachElement.getAttributeValue("typeId"));
+            for (Element dependency : eachElement.getChildren(PROP_DEPENDS_ON)) {
+                runConfiguration.dependsOn.add(new RunConfigurationInternal(dependency.getAttributeValue("name"),
+                                                                            dependency.getAttributeValue("type"),
+                                                                            dependency.getAttributeValue("typeId")));
+            }
+            final Element readiness = eachElement.getChild(PROP_READINESS);
+            if (readiness != null) {
+                runConfiguration.readinessProbe = readReadinessProbe(readiness);
+            }
+            final Element restart = eachElement.getChild(PROP_RESTART);
+            if (restart != null) {
+                runConfiguration.restartPolicy = readRestartPolicy(restart);
+            }
+            runConfiguration.stage = eachElement.getAttributeValue(PROP_STAGE);
+            try {
+                runConfiguration.shards = Math.max(1, Integer.parseInt(eachElement.getAttributeValue(PROP_SHARDS, "1")));
+            } catch (NumberFormatException ignored) {
+                // not split
+            }
+            runConfigurations.add(runConfiguration);
         }
     }
 
@@ -172,18 +665,118 @@ public class MultirunRunConfiguration extends RunConfigurationBase implements Ru
         element.setAttribute(PROP_START_ONE_BY_ONE, String.valueOf(startOneByOne));
         element.setAttribute(PROP_MARK_FAILED_PROCESS, String.valueOf(markFailedProcess));
         element.setAttribute(PROP_HIDE_SUCCESS_PROCESS, String.valueOf(hideSuccessProcess));
+        element.setAttribute(PROP_SHARE_BEFORE_RUN_TASKS, String.valueOf(shareBeforeRunTasks));
+        element.setAttribute(PROP_SKIP_RUNNING, String.valueOf(skipRunning));
+        element.setAttribute(PROP_AGGREGATE_OUTPUT, String.valueOf(aggregateOutput));
+        element.setAttribute(PROP_CAPTURE_LOGS, String.valueOf(captureLogs));
+        element.setAttribute(PROP_OPTIMIZE_ORDER, String.valueOf(optimizeOrder));
+        element.setAttribute(PROP_ADAPTIVE_LAUNCH, String.valueOf(adaptiveLaunch));
+        element.setAttribute(PROP_LOAD_THRESHOLD, String.valueOf(loadThreshold));
+        element.setAttribute(PROP_MAX_LOAD_WAIT, String.valueOf(maxLoadWait));
+        element.setAttribute(PROP_MONITOR_RESOURCES, String.valueOf(monitorResources));
+        element.setAttribute(PROP_MONITOR_INTERVAL, String.valueOf(monitorInterval));
+        element.setAttribute(PROP_CPU_WARNING, String.valueOf(cpuWarning));
+        element.setAttribute(PROP_MEMORY_WARNING, String.valueOf(memoryWarning));
         element.setAttribute(PROP_DELAY_TIME, String.valueOf(delayTime));
+        element.setAttribute(PROP_MAX_CONCURRENT_STARTING, String.valueOf(maxConcurrentStarting));
+        element.setAttribute(PROP_STOP_ORDER, stopOrder.name());
+        element.setAttribute(PROP_STOP_TIMEOUT, String.valueOf(stopTimeout));
+        element.setAttribute(PROP_FAILURE_POLICY, failurePolicy.name());
 
         final List<Element> configurations = new ArrayList<Element>();
+        for (LaunchStage each : stages) {
+            Element stage = new Element(PROP_STAGE);
+            stage.setAttribute("name", each.getName());
+            stage.setAttribute("timeout", String.valueOf(each.getTimeout()));
+            stage.setAttribute("failurePolicy", each.getFailurePolicy().name());
+            configurations.add(stage);
+        }
         for (RunConfigurationInternal each : runConfigurations) {
             Element runConfiguration = new Element("runConfiguration");
             runConfiguration.setAttribute("name", each.name);
             runConfiguration.setAttribute("type", each.type);
+            if (each.typeId != null) {
+                runConfiguration.setAttribute("typeId", each.typeId);
+            }
+            if (each.stage != null) {
+                runConfiguration.setAttribute(PROP_STAGE, each.stage);
+            }
+            if (each.shards > 1) {
+                runConfiguration.setAttribute(PROP_SHARDS, String.valueOf(each.shards));
+            }
+            for (RunConfigurationInternal dependency : each.dependsOn) {
+                Element dependsOn = new Element(PROP_DEPENDS_ON);
+                dependsOn.setAttribute("name", dependency.name);
+                dependsOn.setAttribute("type", dependency.type);
+                if (dependency.typeId != null) {
+                    dependsOn.setAttribute("typeId", dependency.typeId);
+                }
+                runConfiguration.addContent(dependsOn);
+            }
+            if (!each.readinessProbe.isNone()) {
+                Element readiness = new Element(PROP_READINESS);
+                readiness.setAttribute("type", each.readinessProbe.getType().name());
+                readiness.setAttribute("value", each.readinessProbe.getValue());
+                readiness.setAttribute("timeout", String.valueOf(each.readinessProbe.getTimeout()));
+                runConfiguration.addContent(readiness);
+            }
+            if (each.restartPolicy.isEnabled()) {
+                Element restart = new Element(PROP_RESTART);
+                restart.setAttribute("initialDelay", String.valueOf(each.restartPolicy.getInitialDelay()));
+                restart.setAttribute("maxDelay", String.valueOf(each.restartPolicy.getMaxDelay()));
+                restart.setAttribute("maxRestarts", String.valueOf(each.restartPolicy.getMaxRestarts()));
+                restart.setAttribute("window", String.valueOf(each.restartPolicy.getWindow()));
+                runConfiguration.addContent(restart);
+            }
             configurations.add(runConfiguration);
         }
         element.setContent(configurations);
     }
 
+    private static ReadinessProbe readReadinessProbe(Element element) {
+        try {
+            final ReadinessProbe.Type type = ReadinessProbe.Type.valueOf(element.getAttributeValue("type"));
+            final String value = element.getAttributeValue("value", "");
+            final String timeout = element.getAttributeValue("timeout");
+            return new ReadinessProbe(type, value, timeout != null ? Double.parseDouble(timeout) : ReadinessProbe.DEFAULT_TIMEOUT);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return ReadinessProbe.NONE;
+        }
+    }
+
+    private static RestartPolicy readRestartPolicy(Element element) {
+        try {
+            return new RestartPolicy(true,
+                                     Double.parseDouble(element.getAttributeValue("initialDelay")),
+                                     Double.parseDouble(element.getAttributeValue("maxDelay")),
+                                     Integer.parseInt(element.getAttributeValue("maxRestarts")),
+                                     Double.parseDouble(element.getAttributeValue("window")));
+        } catch (NumberFormatException | NullPointerException e) {
+            return RestartPolicy.NONE;
+        }
+    }
+
+    @Nullable
+    private static LaunchStage readStage(Element element) {
+        final String name = element.getAttributeValue("name");
+        if (name == null || name.trim().isEmpty()) {
+            return null;
+        }
+        double timeout = 0;
+        try {
+            timeout = Math.max(0, Double.parseDouble(element.getAttributeValue("timeout", "0")));
+        } catch (NumberFormatException ignored) {
+            // no limit
+        }
+        MultirunSession.FailurePolicy failurePolicy;
+        try {
+            failurePolicy = MultirunSession.FailurePolicy.valueOf(element.getAttributeValue("failurePolicy", ""));
+        } catch (IllegalArgumentException ignored) {
+            failurePolicy = MultirunSession.FailurePolicy.CONTINUE;
+        }
+        return new LaunchStage(name, timeout, failurePolicy);
+    }
+
     @Nullable
     @Override
     public ConfigurationPerRunnerSettings createRunnerSettings(ConfigurationInfoProvider configurationInfoProvider) {
@@ -198,10 +791,14 @@ public class MultirunRunConfiguration extends RunConfigurationBase implements Ru
 
     @Nullable
     @Override
-    public RunProfileState getState(@NotNull Executor executor, @NotNull ExecutionEnvironment executionEnvironment) {
-        return new MultirunRunnerState(getRunConfigurations(), startOneByOne, delayTime,
-                                       reuseTabs, reuseTabsWithFailure,
-                                       markFailedProcess, hideSuccessProcess);
+    public RunProfileState getState(@NotNull Executor executor, @NotNull ExecutionEnvironment executionEnvironment) throws ExecutionException {
+        final LaunchPlan rerunPlan = executionEnvironment.getUserData(RERUN_PLAN);
+        if (rerunPlan != null) {
+            // the configurations that are running already are not started again
+            return new MultirunRunnerState(this, rerunPlan, true);
+        }
+        // nested multirun configurations are started as part of this one
+        return new MultirunRunnerState(this, LaunchPlan.build(this), skipRunning);
     }
 
     @Override
@@ -213,14 +810,46 @@ public class MultirunRunConfiguration extends RunConfigurationBase implements Ru
 
     private static class RunConfigurationInternal {
         String name;
+        // display name of the type, kept to support configurations saved before type id was stored
         String type;
+        String typeId;
+        final Set<RunConfigurationInternal> dependsOn = new LinkedHashSet<RunConfigurationInternal>();
+        ReadinessProbe readinessProbe = ReadinessProbe.NONE;
+        RestartPolicy restartPolicy = RestartPolicy.NONE;
+        // name of the stage, or null if the configuration is started in the first stage
+        String stage;
+        // number of shards to split the test configuration into, or 1 if it's not split
+        int shards = 1;
 
         RunConfigurationInternal() {
         }
 
-        RunConfigurationInternal(String name, String type) {
+        RunConfigurationInternal(String name, String type, String typeId) {
             this.name = name;
             this.type = type;
+            this.typeId = typeId != null ? typeId : RunConfigurationIndex.findTypeId(type);
+        }
+
+        RunConfigurationInternal(RunConfiguration configuration) {
+            this(configuration.getName(), configuration.getType().getDisplayName(), configuration.getType().getId());
+        }
+
+        RunConfigurationKey getKey() {
+            // if type is unknown, then the plugin with this configuration type is not loaded
+            return new RunConfigurationKey(String.valueOf(name), typeId != null ? typeId : String.valueOf(type));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RunConfigurationInternal)) return false;
+            RunConfigurationInternal that = (RunConfigurationInternal) o;
+            return getKey().equals(that.getKey());
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode();
         }
     }
 }
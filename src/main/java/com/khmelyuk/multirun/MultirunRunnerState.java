@@ -1,14 +1,16 @@
 package com.khmelyuk.multirun;
 
+import com.intellij.execution.DefaultExecutionResult;
 import com.intellij.execution.ExecutionException;
+import com.intellij.execution.ExecutionManager;
 import com.intellij.execution.ExecutionResult;
-import com.intellij.execution.ExecutionTarget;
-import com.intellij.execution.ExecutionTargetManager;
 import com.intellij.execution.Executor;
+import com.intellij.execution.RunManager;
 import com.intellij.execution.RunnerAndConfigurationSettings;
 import com.intellij.execution.RunnerRegistry;
 import com.intellij.execution.configurations.RunConfiguration;
 import com.intellij.execution.configurations.RunProfileState;
+import com.intellij.execution.filters.TextConsoleBuilderFactory;
 import com.intellij.execution.impl.RunDialog;
 import com.intellij.execution.impl.RunManagerImpl;
 import com.intellij.execution.impl.RunnerAndConfigurationSettingsImpl;
@@ -16,118 +18,411 @@ import com.intellij.execution.process.ProcessAdapter;
 import com.intellij.execution.process.ProcessEvent;
 import com.intellij.execution.process.ProcessHandler;
 import com.intellij.execution.runners.ExecutionEnvironment;
+import com.intellij.execution.runners.ExecutionEnvironmentBuilder;
 import com.intellij.execution.runners.ExecutionUtil;
 import com.intellij.execution.runners.ProgramRunner;
+import com.intellij.execution.testframework.ui.BaseTestsOutputConsoleView;
+import com.intellij.execution.ui.ConsoleView;
+import com.intellij.execution.ui.ConsoleViewContentType;
 import com.intellij.execution.ui.RunContentDescriptor;
 import com.intellij.icons.AllIcons;
-import com.intellij.openapi.actionSystem.ActionManager;
-import com.intellij.openapi.actionSystem.impl.ActionManagerImpl;
+import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.progress.ProgressIndicator;
-import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.ui.Messages;
-import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.Key;
 import com.intellij.ui.LayeredIcon;
 import com.intellij.ui.content.Content;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.khmelyuk.multirun.ui.AggregatedConsole;
+import com.khmelyuk.multirun.ui.LaunchProblemsDialog;
+import com.khmelyuk.multirun.ui.SearchLogsAction;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Ruslan Khmelyuk
  */
 public class MultirunRunnerState implements RunProfileState {
 
+    private static final Logger LOG = Logger.getInstance(MultirunRunnerState.class);
+    private static final long PROBE_INTERVAL_MILLIS = 200;
+    // the number of characters kept in the console of configuration, when the output of all configurations is aggregated
+    private static final long CONFIGURATION_CONSOLE_LIMIT = 64 * 1024;
+
     private final double delayTime;
     private final boolean reuseTabs;
     private final boolean reuseTabsWithFailure;
     private final boolean startOneByOne;
     private final boolean markFailedProcess;
     private final boolean hideSuccessProcess;
-    private final List<RunConfiguration> runConfigurations;
-    private final StopRunningMultirunConfigurationsAction stopRunningMultirunConfiguration;
-
-    public MultirunRunnerState(List<RunConfiguration> runConfigurations,
-                               boolean startOneByOne, double delayTime,
-                               boolean reuseTabs, boolean reuseTabsWithFailure,
-                               boolean markFailedProcess, boolean hideSuccessProcess) {
-
-        this.delayTime = delayTime;
-        this.reuseTabs = reuseTabs;
-        this.reuseTabsWithFailure = reuseTabsWithFailure;
-        this.startOneByOne = startOneByOne;
-        this.runConfigurations = runConfigurations;
-        this.markFailedProcess = markFailedProcess;
-        this.hideSuccessProcess = hideSuccessProcess;
-
-        ActionManager actionManager = ActionManagerImpl.getInstance();
-        stopRunningMultirunConfiguration = (StopRunningMultirunConfigurationsAction) actionManager.getAction("stopRunningMultirunConfiguration");
+    private final boolean shareBeforeRunTasks;
+    private final boolean skipRunning;
+    private final boolean aggregateOutput;
+    private final boolean captureLogs;
+    private final boolean optimizeOrder;
+    private final boolean adaptiveLaunch;
+    private final double loadThreshold;
+    private final double maxLoadWait;
+    private final boolean monitorResources;
+    private final double monitorInterval;
+    private final int cpuWarning;
+    private final int memoryWarning;
+    private final MultirunSession.FailurePolicy failurePolicy;
+    private final int maxConcurrentStarting;
+    private final LaunchPlan launchPlan;
+    private final Project project;
+    private final MultirunRunConfiguration multirunConfiguration;
+    private MultirunSession session;
+    private MultirunProcessHandler multirunProcessHandler;
+    private LaunchScheduler scheduler;
+    private SharedBeforeRunTasks beforeRunTasks;
+    // output of all processes of the session, if it's shown in multirun tab
+    private AggregatedOutput output;
+    // files with output of each process, if it's captured
+    private SessionLogs logs;
+    // configurations that can't be started, and that user has chosen to skip
+    private final Set<LaunchPlan.Node> skipped = ConcurrentHashMap.newKeySet();
+    // stages which configurations have started to launch
+    private final Set<LaunchStage> startedStages = ConcurrentHashMap.newKeySet();
+    // tabs of the running processes, and the statuses shown in the tab names
+    private final Map<ProcessHandler, RunContentDescriptor> descriptors = new ConcurrentHashMap<>();
+    private final Map<RunContentDescriptor, String> restartStatuses = new ConcurrentHashMap<>();
+    private final Map<RunContentDescriptor, String> resourceStatuses = new ConcurrentHashMap<>();
+    // tabs marked because their process used more resources than allowed
+    private final Set<RunContentDescriptor> resourceWarnings = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param skipRunning whether to leave the configurations that are running already alone.
+     */
+    public MultirunRunnerState(MultirunRunConfiguration configuration, LaunchPlan launchPlan, boolean skipRunning) {
+        this.project = configuration.getProject();
+        this.multirunConfiguration = configuration;
+        this.delayTime = configuration.getDelayTime();
+        this.reuseTabs = configuration.isReuseTabs();
+        this.reuseTabsWithFailure = configuration.isReuseTabsWithFailure();
+        this.startOneByOne = configuration.isStartOneByOne();
+        this.launchPlan = launchPlan;
+        this.markFailedProcess = configuration.isMarkFailedProcess();
+        this.hideSuccessProcess = configuration.isHideSuccessProcess();
+        this.shareBeforeRunTasks = configuration.isShareBeforeRunTasks();
+        this.skipRunning = skipRunning;
+        this.aggregateOutput = configuration.isAggregateOutput();
+        this.captureLogs = configuration.isCaptureLogs();
+        this.optimizeOrder = configuration.isOptimizeOrder();
+        this.adaptiveLaunch = configuration.isAdaptiveLaunch();
+        this.loadThreshold = configuration.getLoadThreshold() / 100.0;
+        this.maxLoadWait = configuration.getMaxLoadWait();
+        this.monitorResources = configuration.isMonitorResources();
+        this.monitorInterval = configuration.getMonitorInterval();
+        this.cpuWarning = configuration.getCpuWarning();
+        this.memoryWarning = configuration.getMemoryWarning();
+        this.failurePolicy = configuration.getFailurePolicy();
+        this.maxConcurrentStarting = configuration.getMaxConcurrentStarting() == MultirunRunConfiguration.MAX_CONCURRENT_STARTING_AUTO
+                ? Runtime.getRuntime().availableProcessors()
+                : configuration.getMaxConcurrentStarting();
     }
 
     @Nullable
     @Override
     public ExecutionResult execute(Executor executor, @NotNull ProgramRunner programRunner) {
-        stopRunningMultirunConfiguration.beginStartingConfigurations();
-        ApplicationManager.getApplication().executeOnPooledThread(() -> runConfigurations(executor, runConfigurations, 0));
+        session = MultirunSessions.getInstance(project).start(multirunConfiguration, executor, launchPlan);
+        multirunProcessHandler = new MultirunProcessHandler(session);
+        AggregatedConsole aggregatedConsole = null;
+        if (aggregateOutput) {
+            output = new AggregatedOutput(multirunConfiguration.getName(), AggregatedOutput.DEFAULT_CAPACITY);
+            output.attach(multirunProcessHandler, multirunConfiguration.getName());
+            aggregatedConsole = new AggregatedConsole(project, output);
+        }
+        if (captureLogs) {
+            logs = new SessionLogs(multirunConfiguration.getName());
+        }
+        if (monitorResources) {
+            final ResourceMonitor monitor = new ResourceMonitor(session, (long) (monitorInterval * 1000), this::resourcesSampled);
+            session.setResourceMonitor(monitor);
+            monitor.start();
+            session.getTermination().whenComplete((exitCode, error) -> monitor.stop());
+        }
+        java.util.concurrent.Executor dispatcher = command -> ApplicationManager.getApplication().executeOnPooledThread(command);
+        if (adaptiveLaunch) {
+            // each next configuration waits while the machine is busy with the ones started before
+            dispatcher = new LoadAwareDispatcher(dispatcher, AppExecutorUtil.getAppScheduledExecutorService(),
+                                                 new SystemLoad(session::getProcesses), loadThreshold, (long) (maxLoadWait * 1000),
+                                                 session::canContinueStartingConfigurations, multirunProcessHandler::print);
+        }
+        scheduler = new LaunchScheduler(launchPlan, maxConcurrentStarting,
+                                        optimizeOrder
+                                                ? StartupHistory.getInstance(project).getCriticalPathOrder(launchPlan)
+                                                : Comparator.comparingInt(LaunchPlan.Node::getIndex),
+                                        dispatcher,
+                                        node -> runConfiguration(executor, node),
+                                        session::doneStarting);
+        if (launchPlan.isEmpty()) {
+            scheduler.start();
+        } else {
+            editBeforeLaunch(executor);
+        }
 
-        return null;
+        // the whole session is represented by single process, so it can be stopped or waited for as any other process
+        final List<AnAction> actions = new ArrayList<AnAction>();
+        final ConsoleView console;
+        if (aggregatedConsole != null) {
+            console = aggregatedConsole.getConsole();
+            Collections.addAll(actions, aggregatedConsole.getActions());
+        } else {
+            console = TextConsoleBuilderFactory.getInstance().createBuilder(project).getConsole();
+            console.attachToProcess(multirunProcessHandler);
+        }
+        if (logs != null) {
+            // the logs can be searched until the multirun tab is closed
+            Disposer.register(console, logs::dispose);
+            actions.add(new SearchLogsAction(project, logs));
+        }
+        return new DefaultExecutionResult(console, multirunProcessHandler, actions.toArray(AnAction.EMPTY_ARRAY));
+    }
+
+    /**
+     * Lets user edit the configurations which settings ask to edit them before each run, and checks all configurations
+     * after that. The launch is cancelled if user cancels editing any of them.
+     */
+    private void editBeforeLaunch(final Executor executor) {
+        ApplicationManager.getApplication().invokeLater(() -> {
+            final Set<RunConfiguration> edited = new HashSet<RunConfiguration>();
+            for (LaunchPlan.Node each : launchPlan.getNodes()) {
+                // shards of the same configuration are edited once
+                final RunnerAndConfigurationSettings settings = RunManager.getInstance(project).findSettings(each.getConfiguration());
+                if (settings != null && settings.isEditBeforeRun() && edited.add(each.getConfiguration())
+                        && !RunDialog.editConfiguration(project, settings, "Edit Configuration", executor)) {
+                    multirunProcessHandler.print("Launch is cancelled while editing '" + each.getName() + "'");
+                    session.launchCancelled();
+                    return;
+                }
+            }
+            validate(executor);
+        }, ModalityState.defaultModalityState());
     }
 
-    private void runConfigurations(final Executor executor, final List<RunConfiguration> runConfigurations, final int index) {
-        if (index >= runConfigurations.size()) {
-            stopRunningMultirunConfiguration.doneStaringConfigurations();
+    /**
+     * Checks all configurations in background before starting any of them. Goes on with the launch if all configurations
+     * can be started, or user has chosen to start only the valid ones.
+     */
+    private void validate(final Executor executor) {
+        new Task.Backgroundable(project, "Checking configurations of '" + multirunConfiguration.getName() + "'", true) {
+            private final LaunchValidator validator = new LaunchValidator(project, executor, session.getTimeline());
+            private List<LaunchValidator.Problem> problems = Collections.emptyList();
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                problems = validator.validate(launchPlan);
+            }
+
+            @Override
+            public void onSuccess() {
+                if (problems.isEmpty()) {
+                    beforeLaunch(executor);
+                    return;
+                }
+
+                final LaunchProblemsDialog dialog = new LaunchProblemsDialog(
+                        project, multirunConfiguration.getName(), problems, launchPlan.size(),
+                        problem -> editConfiguration(executor, validator, problem));
+                if (dialog.showAndGet()) {
+                    // the configurations fixed by user are not skipped
+                    for (LaunchValidator.Problem each : dialog.getProblems()) {
+                        skipped.add(each.getNode());
+                    }
+                    beforeLaunch(executor);
+                } else {
+                    session.launchCancelled();
+                }
+            }
+
+            @Override
+            public void onCancel() {
+                session.launchCancelled();
+            }
+
+            @Override
+            public void onThrowable(@NotNull Throwable error) {
+                super.onThrowable(error);
+                session.launchCancelled();
+            }
+        }.queue();
+    }
+
+    /**
+     * Opens the settings of configuration that can't be started, and checks it again after user has edited it.
+     *
+     * @return the problem that's still there, or null if the configuration can be started now.
+     */
+    @Nullable
+    private LaunchValidator.Problem editConfiguration(final Executor executor,
+                                                      final LaunchValidator validator,
+                                                      final LaunchValidator.Problem problem) {
+        final RunConfiguration configuration = problem.getNode().getConfiguration();
+        RunnerAndConfigurationSettings settings = RunManager.getInstance(project).findSettings(configuration);
+        if (settings == null) {
+            settings = new RunnerAndConfigurationSettingsImpl(RunManagerImpl.getInstanceImpl(project), configuration, false);
+        }
+        if (!RunDialog.editConfiguration(project, settings, "Edit Configuration", executor)) {
+            return problem;
+        }
+        return ReadAction.compute(() -> validator.check(problem.getNode()));
+    }
+
+    /** Runs the shared before launch tasks if there are any, and starts the configurations. */
+    private void beforeLaunch(final Executor executor) {
+        // nested multirun configurations are not started themselves, so their before launch tasks are run here
+        final List<RunConfiguration> configurations = new ArrayList<RunConfiguration>(launchPlan.getExpanded());
+        if (shareBeforeRunTasks) {
+            for (LaunchPlan.Node each : launchPlan.getNodes()) {
+                if (!skipped.contains(each) && !(skipRunning && isRunning(each.getConfiguration()))) {
+                    configurations.add(each.getConfiguration());
+                }
+            }
+        }
+        beforeRunTasks = SharedBeforeRunTasks.collect(project, executor, configurations);
+        if (!beforeRunTasks.isEmpty()) {
+            runBeforeRunTasks(executor);
             return;
         }
-        if (!stopRunningMultirunConfiguration.canContinueStartingConfigurations()) {
-            stopRunningMultirunConfiguration.doneStaringConfigurations();
-            // don't start more configurations if user stopped the plugin work.
+        scheduler.start();
+    }
+
+    /** Runs the before launch tasks of all configurations in background, and starts the configurations after. */
+    private void runBeforeRunTasks(final Executor executor) {
+        new Task.Backgroundable(project, "Before launch tasks of '" + multirunConfiguration.getName() + "'", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                final boolean success = beforeRunTasks.run(indicator);
+                if (success && session.canContinueStartingConfigurations()) {
+                    scheduler.start();
+                    return;
+                }
+
+                if (success) {
+                    // the session was stopped meanwhile
+                    session.doneStarting();
+                    return;
+                }
+                if (!indicator.isCanceled()) {
+                    ExecutionUtil.handleExecutionError(project, executor.getToolWindowId(), multirunConfiguration,
+                                                       new ExecutionException("Before launch tasks failed, configurations are not started"));
+                }
+                session.launchCancelled();
+            }
+
+            @Override
+            public void onCancel() {
+                // the shared build was cancelled
+                session.launchCancelled();
+            }
+        }.queue();
+    }
+
+    private void runConfiguration(final Executor executor, final LaunchPlan.Node node) {
+        if (!session.canContinueStartingConfigurations() || skipped.contains(node)) {
+            // don't start more configurations if user stopped the plugin work,
+            // and don't start the configurations that user has chosen to skip
+            multirunProcessHandler.print("Skipped '" + node.getName() + "'");
+            scheduler.release(node);
             return;
         }
+        if (skipRunning && node.getShards() == null && isRunning(node.getConfiguration())) {
+            // leave the running process alone, the configurations that depend on it can start right away
+            multirunProcessHandler.print("'" + node.getName() + "' is running already");
+            session.getTimeline().mark(node, LaunchTimeline.Event.READY);
+            scheduler.release(node);
+            return;
+        }
+
+        stageStarted(node);
 
-        final RunConfiguration runConfiguration = runConfigurations.get(index);
-        final Project project = runConfiguration.getProject();
+        final RunConfiguration runConfiguration;
+        try {
+            runConfiguration = getRunConfiguration(node);
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to split " + node.getConfiguration().getName() + " into shards", e);
+            multirunProcessHandler.print("Failed to find test classes of '" + node.getName() + "': " + e.getMessage());
+            session.markFailed(node);
+            entryFailed(node);
+            shardFinished(node, null, -1);
+            scheduler.release(node);
+            return;
+        }
+        if (runConfiguration == null) {
+            multirunProcessHandler.print("'" + node.getName() + "' has no test classes to run");
+            session.getTimeline().mark(node, LaunchTimeline.Event.READY);
+            shardFinished(node, null, 0);
+            scheduler.release(node);
+            return;
+        }
+        final ReadinessProbe readinessProbe = node.getReadinessProbe();
+        final EntrySupervisor supervisor = new EntrySupervisor(node.getRestartPolicy());
         final RunnerAndConfigurationSettings configuration = new RunnerAndConfigurationSettingsImpl(
                 RunManagerImpl.getInstanceImpl(project), runConfiguration, false);
 
         boolean started = false;
         try {
+            final LaunchTimeline timeline = session.getTimeline();
             final ProgramRunner runner = RunnerRegistry.getInstance().getRunner(executor.getId(), runConfiguration);
             if (runner == null) {return;}
-            if (!checkRunConfiguration(executor, project, configuration)) {return;}
 
             final ExecutionEnvironment executionEnvironment = new ExecutionEnvironment(executor, runner, configuration, project);
 
             executionEnvironment.setCallback(
                     new ProgramRunner.Callback() {
-                        private final AtomicBoolean processTerminated = new AtomicBoolean(false);
+                        // completed with exit code when the process is terminated
+                        private final CompletableFuture<Integer> processTerminated = new CompletableFuture<Integer>();
+                        // completed with true when readiness probe is satisfied, or false if it never will be
+                        private final CompletableFuture<Boolean> processReady = new CompletableFuture<Boolean>();
+                        // true if process is stopped by user or multirun, so it's not restarted
+                        private volatile boolean stopRequested = false;
 
                         @SuppressWarnings("ConstantConditions")
                         @Override
                         public void processStarted(final RunContentDescriptor descriptor) {
+                            timeline.mark(node, LaunchTimeline.Event.PROCESS_STARTED);
                             if (descriptor == null) {
-                                if (startOneByOne) {
-                                    // start next configuration..
-                                    ApplicationManager.getApplication().executeOnPooledThread(
-                                            () -> runConfigurations(executor, runConfigurations, index + 1));
-                                }
+                                scheduler.release(node);
                                 return;
                             }
-
                             final ProcessHandler processHandler = descriptor.getProcessHandler();
+                            // registered before the listener, so the session sees the termination even if it comes right away
+                            session.addProcess(node, processHandler);
                             if (processHandler != null) {
+                                collectOutput(node, descriptor, processHandler);
+                                descriptors.put(processHandler, descriptor);
                                 processHandler.addProcessListener(new ProcessAdapter() {
                                     @SuppressWarnings("ConstantConditions")
                                     @Override
                                     public void startNotified(ProcessEvent processEvent) {
+                                        timeline.mark(node, LaunchTimeline.Event.START_NOTIFIED);
+                                        multirunProcessHandler.print("Started '" + node.getName() + "'");
                                         Content content = descriptor.getAttachedContent();
                                         if (content != null) {
                                             content.setIcon(descriptor.getIcon());
-                                            if (!stopRunningMultirunConfiguration.canContinueStartingConfigurations()) {
+                                            if (session.isStopTriggered()) {
                                                 // Multirun was stopped - destroy processes that are still starting up
                                                 processHandler.destroyProcess();
 
@@ -154,12 +449,32 @@ public class MultirunRunnerState implements RunProfileState {
                                     @Override
                                     public void processTerminated(final ProcessEvent processEvent) {
                                         onTermination(processEvent, true);
-                                        processTerminated.set(true);
-                                        stopRunningMultirunConfiguration.removeProcess(project, processEvent.getProcessHandler());
+                                        timeline.markTerminated(node, processEvent.getExitCode());
+                                        multirunProcessHandler.print("'" + node.getName()
+                                                                             + "' terminated with exit code " + processEvent.getExitCode());
+                                        if (processEvent.getExitCode() != 0 && !stopRequested) {
+                                            // the process stopped by user or multirun has not failed, so failure policy is not applied
+                                            session.markFailed(node);
+                                            entryFailed(node);
+                                        }
+                                        shardFinished(node, descriptor, processEvent.getExitCode());
+                                        processTerminated.complete(processEvent.getExitCode());
+                                        restartIfCrashed(node, executionEnvironment, descriptor, supervisor,
+                                                         processEvent.getExitCode(), stopRequested);
+                                        session.processTerminated(processEvent.getProcessHandler(), processEvent.getExitCode());
                                     }
 
                                     @Override
-                                    public void processWillTerminate(ProcessEvent processEvent, boolean willBeDestroyed) {}
+                                    public void processWillTerminate(ProcessEvent processEvent, boolean willBeDestroyed) {
+                                        stopRequested = true;
+                                    }
+
+                                    @Override
+                                    public void onTextAvailable(ProcessEvent processEvent, Key outputType) {
+                                        if (!processReady.isDone() && readinessProbe.matches(processEvent.getText())) {
+                                            processReady.complete(true);
+                                        }
+                                    }
 
                                     private void onTermination(final ProcessEvent processEvent, final boolean terminated) {
                                         if (descriptor.getAttachedContent() == null) {
@@ -175,8 +490,9 @@ public class MultirunRunnerState implements RunProfileState {
                                                 // exit code is 0 if the process completed successfully
                                                 final boolean completedSuccessfully = (terminated && processEvent.getExitCode() == 0);
 
-                                                if (hideSuccessProcess && completedSuccessfully) {
-                                                    // close the tab for the success process and exit - nothing else could be done
+                                                if ((hideSuccessProcess || aggregateOutput) && completedSuccessfully) {
+                                                    // close the tab for the success process and exit - nothing else could be done;
+                                                    // with aggregated output its output is in the multirun tab, failed tabs are kept
                                                     ApplicationManager.getApplication().invokeLater(() -> {
                                                         if (content.getManager() != null) {
                                                             content.getManager().removeContent(content, false);
@@ -187,7 +503,7 @@ public class MultirunRunnerState implements RunProfileState {
 
                                                 if ((completedSuccessfully && !reuseTabs) || (!completedSuccessfully && !reuseTabsWithFailure)) {
                                                     // attempt to pin tab if not completed successfully or asked not to reuse tabs
-                                                    if (!stopRunningMultirunConfiguration.isStopMultirunTriggered()) {
+                                                    if (!session.isStopTriggered()) {
                                                         // ... do not pin if multirun stopped by "Stop Multirun" action.
                                                         content.setPinned(true);
                                                     }
@@ -205,119 +521,451 @@ public class MultirunRunnerState implements RunProfileState {
                                         });
                                     }
                                 });
-                            }
-                            stopRunningMultirunConfiguration.addProcess(project, processHandler);
-
-                            final boolean moreConfigurationsToRun = index + 1 < runConfigurations.size();
-                            if (startOneByOne && moreConfigurationsToRun) {
-                                // start next configuration..
-
-                                if (delayTime > 0) {
-                                    final long start = System.currentTimeMillis();
-                                    ProgressManager.getInstance().run(new Task.Backgroundable(project, "Waiting for delay") {
-                                        @Override
-                                        public void run(@NotNull ProgressIndicator progressIndicator) {
-                                            try {
-                                                progressIndicator.setIndeterminate(false);
-                                                while (System.currentTimeMillis() - start < delayTime * 1000) {
-                                                    if (processTerminated.get()) {
-                                                        break;
-                                                    }
-                                                    if (progressIndicator.isCanceled()) {
-                                                        return;
-                                                    }
-                                                    final double passed = (double) (System.currentTimeMillis() - start) / 1000;
-                                                    final String seconds = (delayTime - passed == 1) ? "second" : "seconds";
-                                                    progressIndicator.setFraction(passed / delayTime);
-                                                    final String waitingPeriod = String.format("%.1f", delayTime - passed);
-                                                    progressIndicator.setText("waiting " + waitingPeriod + " " + seconds);
-                                                    Thread.sleep(100);
-                                                }
-                                            } catch (InterruptedException ignored) {
-                                                return;
-                                            }
-                                            ApplicationManager.getApplication().executeOnPooledThread(
-                                                    () -> runConfigurations(executor, runConfigurations, index + 1));
-                                        }
-                                    });
-                                } else if (delayTime < 0) {
-                                    ProgressManager.getInstance().run(new Task.Backgroundable(project, "Waiting for process to complete") {
-                                        @Override
-                                        public void run(@NotNull ProgressIndicator progressIndicator) {
-                                            try {
-                                                while (!processTerminated.get()) {
-                                                    if (progressIndicator.isCanceled()) {
-                                                        return;
-                                                    }
-                                                    Thread.sleep(200);
-                                                }
-                                            } catch (InterruptedException ignored) {
-                                                return;
-                                            }
-                                            ApplicationManager.getApplication().executeOnPooledThread(
-                                                    () -> runConfigurations(executor, runConfigurations, index + 1));
-                                        }
-                                    });
-                                } else {
-                                    ApplicationManager.getApplication().executeOnPooledThread(
-                                            () -> runConfigurations(executor, runConfigurations, index + 1));
-//                                    runConfigurations(executor, runConfigurations, index + 1);
-                                }
                             } else {
-                                stopRunningMultirunConfiguration.doneStaringConfigurations();
+                                // nothing to wait for
+                                processTerminated.complete(0);
                             }
+
+                            processReady.thenAccept(ready -> {
+                                if (ready) {
+                                    timeline.mark(node, LaunchTimeline.Event.READY);
+                                    final long dispatched = timeline.getTime(node, LaunchTimeline.Event.DISPATCHED);
+                                    if (dispatched != 0) {
+                                        final long startupTime = timeline.getTime(node, LaunchTimeline.Event.READY) - dispatched;
+                                        StartupHistory.getInstance(project).record(node.getConfiguration(), startupTime);
+                                    }
+                                }
+                            });
+                            awaitReady(node, processTerminated, processReady).thenRun(() -> scheduler.doneStarting(node));
+                            awaitRelease(node, processTerminated, processReady).thenRun(() -> scheduler.release(node));
                         }
                     }
             );
             ApplicationManager.getApplication().invokeLater(() -> {
                 try {
+                    timeline.mark(node, LaunchTimeline.Event.DISPATCHED);
                     runner.execute(executionEnvironment);
                 } catch (ExecutionException e) {
                     ExecutionUtil.handleExecutionError(project, executor.getToolWindowId(), configuration.getConfiguration(), e);
+                    multirunProcessHandler.print("Failed to start '" + node.getName() + "': " + e.getMessage());
+                    session.markFailed(node);
+                    entryFailed(node);
+                    shardFinished(node, null, -1);
+                    scheduler.release(node);
                 }
             }, ModalityState.defaultModalityState());
             started = true;
         } finally {
-            // start the next one
-            if (!startOneByOne) {
-                ApplicationManager.getApplication().executeOnPooledThread(
-                        () -> runConfigurations(executor, runConfigurations, index + 1));
-            } else if (!started) {
-                // failed to start current, means the chain is broken
-                ApplicationManager.getApplication().executeOnPooledThread(
-                        () -> runConfigurations(executor, runConfigurations, index + 1));
+            if (!started) {
+                // failed to start current, so let the dependent configurations start
+                multirunProcessHandler.print("Failed to start '" + node.getName() + "'");
+                session.markFailed(node);
+                entryFailed(node);
+                shardFinished(node, null, -1);
+                scheduler.release(node);
+            }
+        }
+    }
+
+    /** Gets the configuration to start for the node, or null if it's the shard without test classes to run. */
+    @Nullable
+    private RunConfiguration getRunConfiguration(final LaunchPlan.Node node) {
+        // before launch tasks were run already, if they are shared
+        final RunConfiguration configuration = beforeRunTasks != null
+                ? beforeRunTasks.withoutBeforeRunTasks(node.getConfiguration())
+                : node.getConfiguration();
+        return node.getShards() != null
+                ? node.getShards().getShardConfiguration(node.getShard(), configuration, project)
+                : configuration;
+    }
+
+    /**
+     * Collects the test results of finished shard, and prints the summary of all shards when the last of them finishes.
+     * The session stays active until then, so the summary gets to the multirun console.
+     */
+    private void shardFinished(final LaunchPlan.Node node, @Nullable final RunContentDescriptor descriptor, final int exitCode) {
+        final TestShards shards = node.getShards();
+        if (shards == null) {
+            return;
+        }
+        session.taskStarted();
+        // the test tree is updated on EDT, so it has all results of the shard once the events queued before are processed
+        ApplicationManager.getApplication().invokeLater(() -> {
+            try {
+                final TestShards.Result result = shards.readResults(descriptor, exitCode, TestDurations.getInstance(project));
+                if (shards.shardFinished(node.getShard(), result)) {
+                    multirunProcessHandler.print(shards.getSummary());
+                }
+            } finally {
+                session.taskDone();
+            }
+        });
+    }
+
+    /**
+     * Checks whether the configuration is running already, either started by any multirun session
+     * or by user as a standalone configuration.
+     */
+    private boolean isRunning(final RunConfiguration configuration) {
+        final RunConfigurationKey key = RunConfigurationKey.of(configuration);
+        if (MultirunSessions.getInstance(project).isRunning(key)) {
+            return true;
+        }
+        return !ExecutionManager.getInstance(project)
+                                .getRunningDescriptors(settings -> key.equals(RunConfigurationKey.of(settings.getConfiguration())))
+                                .isEmpty();
+    }
+
+    /** Applies the failure policy of the stage of configuration that has failed, or of the whole multirun. */
+    private void entryFailed(final LaunchPlan.Node node) {
+        final LaunchStage stage = node.getStage();
+        applyFailurePolicy(stage != null ? stage.getFailurePolicy() : failurePolicy);
+    }
+
+    /**
+     * Applies the failure policy when configuration has failed while the multirun is starting:
+     * cancels the launches that are waiting, and stops the started configurations if needed.
+     * Failures after all configurations were started, or after user has stopped the multirun, are ignored.
+     */
+    private void applyFailurePolicy(final MultirunSession.FailurePolicy policy) {
+        if (policy == MultirunSession.FailurePolicy.CONTINUE || !session.isStarting() || session.isStopTriggered()) {
+            return;
+        }
+        if (!session.stopLaunching()) {
+            return;
+        }
+
+        multirunProcessHandler.print("Stopped launching the rest of configurations");
+        scheduler.cancel();
+        if (policy == MultirunSession.FailurePolicy.STOP_ALL) {
+            multirunProcessHandler.print("Stopping started configurations");
+            session.stop();
+        }
+    }
+
+    /** Starts the timeout of the stage, when the first configuration of the stage is launched. */
+    private void stageStarted(final LaunchPlan.Node node) {
+        final LaunchStage stage = node.getStage();
+        if (stage == null || !startedStages.add(stage)) {
+            return;
+        }
+        multirunProcessHandler.print("Starting stage '" + stage.getName() + "'");
+        if (stage.getTimeout() > 0) {
+            AppExecutorUtil.getAppScheduledExecutorService().schedule(
+                    () -> stageTimedOut(stage), (long) (stage.getTimeout() * 1000), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Applies the failure policy of the stage which configurations are not ready when its timeout expires,
+     * and lets the next stage start without waiting for them anymore.
+     */
+    private void stageTimedOut(final LaunchStage stage) {
+        if (!session.isStarting() || session.isStopTriggered()) {
+            return;
+        }
+        final List<LaunchPlan.Node> pending = new ArrayList<LaunchPlan.Node>();
+        for (LaunchPlan.Node each : launchPlan.getNodes()) {
+            if (each.getStage() == stage && !scheduler.isReleased(each)) {
+                pending.add(each);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        final String message = "Stage '" + stage.getName() + "' is not ready after " + stage.getTimeout()
+                + " seconds, waiting for " + pending;
+        LOG.warn(message);
+        multirunProcessHandler.print(message);
+        applyFailurePolicy(stage.getFailurePolicy());
+        for (LaunchPlan.Node each : pending) {
+            // the configurations that are not launched yet are released as usual, once they are started
+            if (scheduler.isDispatched(each)) {
+                scheduler.release(each);
             }
         }
     }
 
-    private boolean checkRunConfiguration(Executor executor, Project project, RunnerAndConfigurationSettings configuration) {
-        ExecutionTarget target = ExecutionTargetManager.getActiveTarget(project);
+    /**
+     * Restarts the supervised configuration that has crashed, after the backoff delay of its restart policy.
+     * Processes that were stopped, or that crashed more often than the policy allows, are not restarted.
+     * The restarted process is shown in the same tab, unless the tab was pinned.
+     */
+    private void restartIfCrashed(final LaunchPlan.Node node,
+                                  final ExecutionEnvironment environment,
+                                  final RunContentDescriptor descriptor,
+                                  final EntrySupervisor supervisor,
+                                  final int exitCode,
+                                  final boolean stopRequested) {
+        if (!supervisor.isEnabled() || exitCode == 0 || stopRequested || session.isStopTriggered()) {
+            return;
+        }
 
-        if (!ExecutionTargetManager.canRun(configuration.getConfiguration(), target)) {
-            ExecutionUtil.handleExecutionError(
-                    project, executor.getToolWindowId(), configuration.getConfiguration(),
-                    new ExecutionException(StringUtil.escapeXmlEntities("Cannot run '" + configuration.getName()
-                                                                                + "' on '" + target.getDisplayName() + "'")));
-            return false;
+        final String name = node.getName();
+        final long delay = supervisor.crashed();
+        if (delay < 0) {
+            multirunProcessHandler.print("'" + name + "' crashed too often, it's not restarted anymore");
+            updateRestartStatus(descriptor, supervisor, false);
+            return;
         }
+        multirunProcessHandler.print("Restarting '" + name + "' in " + delay + " ms");
+        session.scheduleRestart(() -> ApplicationManager.getApplication().invokeLater(
+                () -> restart(node, environment, descriptor, supervisor), ModalityState.defaultModalityState()), delay);
+    }
 
-        if (!RunManagerImpl.canRunConfiguration(configuration, executor) || configuration.isEditBeforeRun()) {
-            if (!RunDialog.editConfiguration(project, configuration, "Edit Configuration", executor)) {
-                return false;
+    private void restart(final LaunchPlan.Node node,
+                         final ExecutionEnvironment environment,
+                         final RunContentDescriptor descriptor,
+                         final EntrySupervisor supervisor) {
+        if (session.isStopTriggered()) {
+            session.restartDone();
+            return;
+        }
+
+        final ExecutionEnvironment restartEnvironment = new ExecutionEnvironmentBuilder(environment)
+                .contentToReuse(descriptor)
+                .build();
+        restartEnvironment.setCallback(new ProgramRunner.Callback() {
+            @Override
+            public void processStarted(RunContentDescriptor restartedDescriptor) {
+                final ProcessHandler processHandler = restartedDescriptor != null ? restartedDescriptor.getProcessHandler() : null;
+                if (processHandler != null) {
+                    collectOutput(node, restartedDescriptor, processHandler);
+                    descriptors.put(processHandler, restartedDescriptor);
+                    session.addProcess(node, processHandler);
+                    processHandler.addProcessListener(
+                            new RestartedProcessListener(node, restartEnvironment, restartedDescriptor, supervisor));
+                }
+                session.restartDone();
             }
+        });
 
-            while (!RunManagerImpl.canRunConfiguration(configuration, executor)) {
-                if (0 == Messages.showYesNoDialog(project, "Configuration is still incorrect. Do you want to edit it again?",
-                                                  "Change Configuration Settings",
-                                                  "Edit", "Continue Anyway", Messages.getErrorIcon())) {
-                    if (!RunDialog.editConfiguration(project, configuration, "Edit Configuration", executor)) {
-                        break;
-                    }
-                } else {
-                    break;
+        try {
+            environment.getRunner().execute(restartEnvironment);
+        } catch (ExecutionException e) {
+            LOG.warn("Failed to restart " + node.getName(), e);
+            multirunProcessHandler.print("Failed to restart '" + node.getName() + "': " + e.getMessage());
+            session.restartDone();
+        }
+    }
+
+    /** Collects the output of the process into the aggregated console and the log files, if they are enabled. */
+    private void collectOutput(final LaunchPlan.Node node, final RunContentDescriptor descriptor, final ProcessHandler processHandler) {
+        if (output != null) {
+            output.attach(processHandler, node.getName());
+            limitConsole(descriptor, processHandler);
+        }
+        if (logs != null) {
+            logs.capture(processHandler, node.getName());
+        }
+    }
+
+    /**
+     * Keeps only the latest output in the console of configuration, as the output is in the aggregated console already.
+     * The tab of running process can't be closed without stopping the process, so its console is cleared instead,
+     * each time it gets more than {@link #CONFIGURATION_CONSOLE_LIMIT} characters. Test consoles are left alone,
+     * as their output is split by tests.
+     */
+    private void limitConsole(final RunContentDescriptor descriptor, final ProcessHandler processHandler) {
+        if (!(descriptor.getExecutionConsole() instanceof ConsoleView)
+                || descriptor.getExecutionConsole() instanceof BaseTestsOutputConsoleView) {
+            return;
+        }
+        final ConsoleView console = (ConsoleView) descriptor.getExecutionConsole();
+        final AtomicLong printed = new AtomicLong(0);
+        processHandler.addProcessListener(new ProcessAdapter() {
+            @Override
+            public void onTextAvailable(@NotNull ProcessEvent event, @NotNull Key outputType) {
+                if (printed.addAndGet(event.getText().length()) > CONFIGURATION_CONSOLE_LIMIT) {
+                    printed.set(0);
+                    console.clear();
+                    console.print("Older output is in the Multirun tab\n", ConsoleViewContentType.SYSTEM_OUTPUT);
                 }
             }
+        });
+    }
+
+    /** Shows the number of restarts and the last crash time in the tab of configuration. */
+    private void updateRestartStatus(final RunContentDescriptor descriptor, final EntrySupervisor supervisor, final boolean running) {
+        restartStatuses.put(descriptor, supervisor.getStatus());
+        ApplicationManager.getApplication().invokeLater(() -> updateTabName(descriptor, running));
+    }
+
+    /**
+     * Shows the resources used by each process in its tab, and marks the tabs of processes that use more than allowed.
+     * Called on the sampler thread, so all tabs are updated at once later.
+     */
+    private void resourcesSampled(final List<ResourceMonitor.Usage> usages) {
+        descriptors.keySet().removeIf(ProcessHandler::isProcessTerminated);
+        final Map<RunContentDescriptor, ResourceMonitor.Usage> tabs = new HashMap<>();
+        final Set<RunContentDescriptor> warnings = new HashSet<>();
+        for (ResourceMonitor.Usage each : usages) {
+            final RunContentDescriptor descriptor = descriptors.get(each.getProcess());
+            if (descriptor == null) {
+                continue;
+            }
+            tabs.put(descriptor, each);
+            resourceStatuses.put(descriptor, each.toString());
+            // the tab is marked once, as the usage of resources usually goes up and down
+            if (isOverResourceLimit(each) && resourceWarnings.add(descriptor)) {
+                warnings.add(descriptor);
+                multirunProcessHandler.print("'" + each.getName() + "' uses " + each + ", which is more than expected");
+            }
+        }
+        if (tabs.isEmpty()) {
+            return;
+        }
+
+        ApplicationManager.getApplication().invokeLater(() -> {
+            for (Map.Entry<RunContentDescriptor, ResourceMonitor.Usage> entry : tabs.entrySet()) {
+                final ProcessHandler process = entry.getValue().getProcess();
+                if (process.isProcessTerminating() || process.isProcessTerminated()) {
+                    // the tab name was reset when the process terminated
+                    continue;
+                }
+                updateTabName(entry.getKey(), true);
+                final Content content = entry.getKey().getAttachedContent();
+                if (content != null && warnings.contains(entry.getKey())) {
+                    content.setIcon(LayeredIcon.create(content.getIcon(), AllIcons.Nodes.TabAlert));
+                }
+            }
+        });
+    }
+
+    private boolean isOverResourceLimit(final ResourceMonitor.Usage usage) {
+        return (cpuWarning > 0 && usage.getCpu() > cpuWarning)
+                || (memoryWarning > 0 && usage.getRss() > memoryWarning * 1024L * 1024);
+    }
+
+    /** Shows the restart status and the used resources of the process in the name of its tab, and marks the running one with *. */
+    private void updateTabName(final RunContentDescriptor descriptor, final boolean running) {
+        final Content content = descriptor.getAttachedContent();
+        if (content == null) {
+            return;
+        }
+        final StringBuilder name = new StringBuilder(descriptor.getDisplayName());
+        final String restartStatus = restartStatuses.get(descriptor);
+        if (restartStatus != null) {
+            name.append(" (").append(restartStatus).append(')');
+        }
+        final String resourceStatus = running ? resourceStatuses.get(descriptor) : null;
+        if (resourceStatus != null) {
+            name.append(" [").append(resourceStatus).append(']');
+        }
+        if (running) {
+            name.append('*');
+        }
+        content.setDisplayName(name.toString());
+    }
+
+    /** Watches the process of restarted configuration, so it's restarted again if it crashes. */
+    private class RestartedProcessListener extends ProcessAdapter {
+        private final LaunchPlan.Node node;
+        private final ExecutionEnvironment environment;
+        private final RunContentDescriptor descriptor;
+        private final EntrySupervisor supervisor;
+        private volatile boolean stopRequested = false;
+
+        RestartedProcessListener(LaunchPlan.Node node, ExecutionEnvironment environment,
+                                 RunContentDescriptor descriptor, EntrySupervisor supervisor) {
+            this.node = node;
+            this.environment = environment;
+            this.descriptor = descriptor;
+            this.supervisor = supervisor;
+        }
+
+        @Override
+        public void startNotified(@NotNull ProcessEvent event) {
+            multirunProcessHandler.print("Restarted '" + node.getName() + "', " + supervisor.getStatus());
+            updateRestartStatus(descriptor, supervisor, true);
+        }
+
+        @Override
+        public void processWillTerminate(@NotNull ProcessEvent event, boolean willBeDestroyed) {
+            stopRequested = true;
+        }
+
+        @Override
+        public void processTerminated(@NotNull ProcessEvent event) {
+            multirunProcessHandler.print("'" + node.getName()
+                                                 + "' terminated with exit code " + event.getExitCode());
+            updateRestartStatus(descriptor, supervisor, false);
+            if (event.getExitCode() != 0 && !stopRequested) {
+                session.markFailed(node);
+            }
+            restartIfCrashed(node, environment, descriptor, supervisor, event.getExitCode(), stopRequested);
+            session.processTerminated(event.getProcessHandler(), event.getExitCode());
+        }
+    }
+
+    /**
+     * Gets the future that is completed when the node is ready: right away if it has no readiness probe,
+     * or when the probe is satisfied, the process is terminated or the probe timeout expired.
+     * Waiting for readiness is done with timers on the shared scheduler, so no thread is blocked meanwhile.
+     */
+    private CompletableFuture<?> awaitReady(final LaunchPlan.Node node,
+                                            final CompletableFuture<Integer> processTerminated,
+                                            final CompletableFuture<Boolean> processReady) {
+        final ReadinessProbe readinessProbe = node.getReadinessProbe();
+        if (readinessProbe.isNone()) {
+            processReady.complete(true);
+            return processReady;
+        }
+
+        final ScheduledExecutorService timers = AppExecutorUtil.getAppScheduledExecutorService();
+        if (readinessProbe.getType() != ReadinessProbe.Type.LOG_PATTERN) {
+            final ScheduledFuture<?> check = timers.scheduleWithFixedDelay(() -> {
+                if (readinessProbe.check()) {
+                    processReady.complete(true);
+                }
+            }, 0, PROBE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            processReady.whenComplete((ready, error) -> check.cancel(false));
+        }
+        final ScheduledFuture<?> timeout = timers.schedule(() -> {
+            if (processReady.complete(false)) {
+                final String message = "'" + node.getName() + "' is not ready after "
+                        + readinessProbe.getTimeout() + " seconds: " + readinessProbe;
+                LOG.warn(message);
+                multirunProcessHandler.print(message);
+                session.markFailed(node);
+                entryFailed(node);
+            }
+        }, (long) (readinessProbe.getTimeout() * 1000), TimeUnit.MILLISECONDS);
+        processReady.whenComplete((ready, error) -> timeout.cancel(false));
+        // the process that has terminated is never going to be ready
+        processTerminated.thenRun(() -> processReady.complete(false));
+        return processReady;
+    }
+
+    /**
+     * Gets the future that is completed when the configurations that depend on the node can be started.
+     * Waiting for delay is done with timer on the shared scheduler, so no thread is blocked meanwhile.
+     */
+    private CompletableFuture<?> awaitRelease(final LaunchPlan.Node node,
+                                              final CompletableFuture<Integer> processTerminated,
+                                              final CompletableFuture<Boolean> processReady) {
+        if (node.getDependents().isEmpty()) {
+            // nothing waits for this configuration
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!node.getReadinessProbe().isNone() || node.getStage() != null) {
+            // the next stage is started as soon as all configurations of the stage are ready, without the delay
+            return processReady;
+        }
+
+        if (delayTime > 0) {
+            final CompletableFuture<Void> delay = new CompletableFuture<Void>();
+            final ScheduledFuture<?> timer = AppExecutorUtil.getAppScheduledExecutorService().schedule(
+                    () -> delay.complete(null), (long) (delayTime * 1000), TimeUnit.MILLISECONDS);
+            delay.whenComplete((result, error) -> timer.cancel(false));
+            // do not wait for delay if the process has terminated already
+            processTerminated.thenRun(() -> delay.complete(null));
+            return delay;
+        }
+        if (delayTime < 0) {
+            return processTerminated;
         }
-        return true;
+        return CompletableFuture.completedFuture(null);
     }
 }
@@ -0,0 +1,356 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.Executor;
+import com.intellij.execution.process.ProcessHandler;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single launch of the multirun configuration: the processes it started and whether it was stopped.
+ * The session is active while it's starting configurations or any of its processes is running.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class MultirunSession {
+
+    /** What to do when configuration fails while the session is starting. */
+    public enum FailurePolicy {
+        CONTINUE("Continue"),
+        STOP_LAUNCHING("Stop launching"),
+        STOP_ALL("Stop launching and stop started");
+
+        private final String displayName;
+
+        FailurePolicy(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    private final Project project;
+    private final String name;
+    /** Exit code of the session which launch was cancelled, the same as shell uses for the command interrupted by user. */
+    public static final int CANCELLED_EXIT_CODE = 130;
+
+    private final MultirunRunConfiguration configuration;
+    private final Executor executor;
+    private final LaunchPlan launchPlan;
+    private final MultirunSessions sessions;
+    private final MultirunStopper stopper;
+    private final Map<ProcessHandler, SessionProcess> processes = new ConcurrentHashMap<>();
+    // nodes which last process has failed, or which failed to start
+    private final Set<LaunchPlan.Node> failed = ConcurrentHashMap.newKeySet();
+    private final AtomicLong launchSequence = new AtomicLong(0);
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+    private final AtomicBoolean launchingStopped = new AtomicBoolean(false);
+    private final AtomicBoolean starting = new AtomicBoolean(true);
+    // restarts of crashed processes that are scheduled or in progress
+    private final AtomicInteger pendingRestarts = new AtomicInteger(0);
+    // work to finish after processes terminated, like summary of test shards
+    private final AtomicInteger pendingTasks = new AtomicInteger(0);
+    private final Set<ScheduledFuture<?>> scheduledRestarts = ConcurrentHashMap.newKeySet();
+    // the worst exit code of the processes
+    private final AtomicInteger exitCode = new AtomicInteger(0);
+    // completed with the worst exit code when session is not active anymore
+    private final CompletableFuture<Integer> terminated = new CompletableFuture<>();
+    private final LaunchTimeline timeline;
+    private volatile ResourceMonitor resourceMonitor;
+
+    MultirunSession(@NotNull MultirunRunConfiguration configuration,
+                    @NotNull Executor executor,
+                    @NotNull LaunchPlan launchPlan,
+                    @NotNull MultirunSessions sessions) {
+        this.project = configuration.getProject();
+        this.name = configuration.getName();
+        this.configuration = configuration;
+        this.executor = executor;
+        this.launchPlan = launchPlan;
+        this.stopper = new MultirunStopper(project, name, configuration.getStopOrder(), configuration.getStopTimeout());
+        this.sessions = sessions;
+        this.timeline = new LaunchTimeline(name, sessions::fireChanged);
+    }
+
+    public Project getProject() {
+        return project;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LaunchTimeline getTimeline() {
+        return timeline;
+    }
+
+    public MultirunRunConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public LaunchPlan getLaunchPlan() {
+        return launchPlan;
+    }
+
+    /** Registers the started process of the node. Should be called before listening for its termination. */
+    public void addProcess(LaunchPlan.Node node, ProcessHandler process) {
+        if (process == null) return;
+
+        if (cancelled.get()) {
+            stop(process);
+            return;
+        }
+        processes.put(process, new SessionProcess(process, node, launchSequence.incrementAndGet()));
+        failed.remove(node);
+        if (process.isProcessTerminated()) {
+            // the process terminated before it was registered, so its termination could have been missed
+            final Integer processExitCode = process.getExitCode();
+            processTerminated(process, processExitCode != null ? processExitCode : 0);
+        }
+    }
+
+    /** Marks that the process of the node has failed, or that the node failed to start. */
+    public void markFailed(LaunchPlan.Node node) {
+        failed.add(node);
+    }
+
+    /** Whether any node has failed, without copying the failed nodes. */
+    public boolean hasFailed() {
+        return !failed.isEmpty();
+    }
+
+    /** Gets the nodes which last process has failed, or which failed to start. */
+    public Set<LaunchPlan.Node> getFailed() {
+        return new HashSet<>(failed);
+    }
+
+    /** Removes the terminated process from this session, and keeps its exit code if it's worse than others. */
+    public void processTerminated(ProcessHandler process, int processExitCode) {
+        if (process == null) return;
+
+        exitCode.accumulateAndGet(processExitCode, MultirunSession::worseExitCode);
+        processes.remove(process);
+        checkActive();
+    }
+
+    /** Non-zero exit code is worse than zero, and of two non-zero codes the one with larger absolute value is worse. */
+    private static int worseExitCode(int first, int second) {
+        return Math.abs(second) > Math.abs(first) ? second : first;
+    }
+
+    /** Gets the future that is completed with the worst exit code of processes when the session is not active anymore. */
+    public CompletableFuture<Integer> getTermination() {
+        return terminated;
+    }
+
+    /** Gets the running processes of this session in the order they were started. */
+    public List<ProcessHandler> getProcesses() {
+        final List<ProcessHandler> result = new ArrayList<>();
+        for (SessionProcess each : getSessionProcesses()) {
+            result.add(each.handler);
+        }
+        return result;
+    }
+
+    /** Gets the running processes of this session in the order they were started, with their launch plan nodes. */
+    public Map<ProcessHandler, LaunchPlan.Node> getProcessNodes() {
+        final Map<ProcessHandler, LaunchPlan.Node> result = new LinkedHashMap<>();
+        for (SessionProcess each : getSessionProcesses()) {
+            result.put(each.handler, each.node);
+        }
+        return result;
+    }
+
+    /** Gets the monitor of resources used by the processes, or null if they are not monitored. */
+    @Nullable
+    public ResourceMonitor getResourceMonitor() {
+        return resourceMonitor;
+    }
+
+    public void setResourceMonitor(@Nullable ResourceMonitor resourceMonitor) {
+        this.resourceMonitor = resourceMonitor;
+    }
+
+    /** Checks whether this session has running process of the configuration. */
+    public boolean isRunning(RunConfigurationKey configuration) {
+        for (SessionProcess each : processes.values()) {
+            if (each.node != null && configuration.equals(RunConfigurationKey.of(each.node.getConfiguration()))
+                    && !each.handler.isProcessTerminating() && !each.handler.isProcessTerminated()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Gets the nodes with running processes, with the time their latest process was started. */
+    public Map<LaunchPlan.Node, Long> getRunningNodes() {
+        final Map<LaunchPlan.Node, Long> result = new HashMap<>();
+        for (SessionProcess each : getSessionProcesses()) {
+            if (each.node != null && !each.handler.isProcessTerminating() && !each.handler.isProcessTerminated()) {
+                result.put(each.node, each.startTime);
+            }
+        }
+        return result;
+    }
+
+    private List<SessionProcess> getSessionProcesses() {
+        final List<SessionProcess> result = new ArrayList<>(processes.values());
+        result.sort(Comparator.comparingLong(each -> each.sequence));
+        return result;
+    }
+
+    /**
+     * Marks that the launch was cancelled by user, or failed, before the configurations were started.
+     * The session ends with {@link #CANCELLED_EXIT_CODE}, unless some process has failed worse.
+     */
+    public void launchCancelled() {
+        exitCode.accumulateAndGet(CANCELLED_EXIT_CODE, MultirunSession::worseExitCode);
+        doneStarting();
+    }
+
+    /** Marks that all configurations of this session have been started. */
+    public void doneStarting() {
+        starting.set(false);
+        checkActive();
+    }
+
+    public boolean isStarting() {
+        return starting.get();
+    }
+
+    public boolean canContinueStartingConfigurations() {
+        return !cancelled.get() && !launchingStopped.get();
+    }
+
+    /**
+     * Stops starting configurations, while the started ones keep running.
+     *
+     * @return true if launching was stopped by this call.
+     */
+    public boolean stopLaunching() {
+        return launchingStopped.compareAndSet(false, true);
+    }
+
+    public boolean isStopTriggered() {
+        return cancelled.get();
+    }
+
+    public boolean isActive() {
+        return starting.get() || !processes.isEmpty() || pendingRestarts.get() > 0 || pendingTasks.get() > 0;
+    }
+
+    /**
+     * Schedules the restart of crashed process. The session stays active until the restart calls {@link #restartDone()},
+     * and the restart is cancelled if the session is stopped before the delay expires.
+     */
+    public void scheduleRestart(Runnable restart, long delayMillis) {
+        if (cancelled.get()) return;
+
+        pendingRestarts.incrementAndGet();
+        scheduledRestarts.add(AppExecutorUtil.getAppScheduledExecutorService().schedule(
+                restart, delayMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /** Marks that the scheduled restart has completed, whether the process was started or not. */
+    public void restartDone() {
+        pendingRestarts.decrementAndGet();
+        checkActive();
+    }
+
+    /** Keeps the session active until the task calls {@link #taskDone()}, even if all processes have terminated. */
+    public void taskStarted() {
+        pendingTasks.incrementAndGet();
+    }
+
+    public void taskDone() {
+        pendingTasks.decrementAndGet();
+        checkActive();
+    }
+
+    /**
+     * Stops starting configurations and stops the processes of this session in configured order.
+     * Other sessions keep running. The session stays active until all its processes are terminated.
+     */
+    public int stop() {
+        cancelled.set(true);
+        for (ScheduledFuture<?> each : scheduledRestarts) {
+            if (each.cancel(false)) {
+                pendingRestarts.decrementAndGet();
+            }
+        }
+        scheduledRestarts.clear();
+
+        final List<MultirunStopper.StoppedProcess> processesToStop = new ArrayList<>();
+        for (SessionProcess each : getSessionProcesses()) {
+            processesToStop.add(new MultirunStopper.StoppedProcess(each.handler, each.node));
+        }
+        stopper.stop(processesToStop);
+        checkActive();
+        return processesToStop.size();
+    }
+
+    /** Stops the processes of the nodes, while the rest of the session keeps running. */
+    public CompletableFuture<Void> stopProcesses(Collection<LaunchPlan.Node> nodes) {
+        final List<MultirunStopper.StoppedProcess> processesToStop = new ArrayList<>();
+        for (SessionProcess each : getSessionProcesses()) {
+            if (each.node != null && nodes.contains(each.node)) {
+                processesToStop.add(new MultirunStopper.StoppedProcess(each.handler, each.node));
+            }
+        }
+        return stopper.stop(processesToStop);
+    }
+
+    private void checkActive() {
+        if (!isActive()) {
+            sessions.remove(this);
+            terminated.complete(exitCode.get());
+        }
+    }
+
+    private void stop(ProcessHandler processHandler) {
+        stopper.stop(List.of(new MultirunStopper.StoppedProcess(processHandler, null)));
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static class SessionProcess {
+        final ProcessHandler handler;
+        final LaunchPlan.Node node;
+        final long sequence;
+        final long startTime = System.currentTimeMillis();
+
+        SessionProcess(ProcessHandler handler, LaunchPlan.Node node, long sequence) {
+            this.handler = handler;
+            this.node = node;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.Executor;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Active multirun sessions of the project, and the few recent ones.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class MultirunSessions {
+
+    private static final int MAX_RECENT_SESSIONS = 20;
+
+    private final Set<MultirunSession> sessions = ConcurrentHashMap.newKeySet();
+    // recent sessions, including active ones, the latest first; guarded by itself
+    private final Deque<MultirunSession> recentSessions = new ArrayDeque<>();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    public static MultirunSessions getInstance(@NotNull Project project) {
+        return project.getService(MultirunSessions.class);
+    }
+
+    /** Starts new session for the multirun configuration. */
+    public MultirunSession start(@NotNull MultirunRunConfiguration configuration,
+                                 @NotNull Executor executor,
+                                 @NotNull LaunchPlan launchPlan) {
+        final MultirunSession session = new MultirunSession(configuration, executor, launchPlan, this);
+        sessions.add(session);
+        synchronized (recentSessions) {
+            recentSessions.addFirst(session);
+            while (recentSessions.size() > MAX_RECENT_SESSIONS) {
+                recentSessions.removeLast();
+            }
+        }
+        fireChanged();
+        return session;
+    }
+
+    void remove(MultirunSession session) {
+        if (sessions.remove(session)) {
+            fireChanged();
+        }
+    }
+
+    public List<MultirunSession> getSessions() {
+        return new ArrayList<>(sessions);
+    }
+
+    /** Gets the recent sessions, the latest first. */
+    public List<MultirunSession> getRecentSessions() {
+        synchronized (recentSessions) {
+            return new ArrayList<>(recentSessions);
+        }
+    }
+
+    /** Checks whether any active session has running process of the configuration. */
+    public boolean isRunning(@NotNull RunConfigurationKey configuration) {
+        for (MultirunSession each : sessions) {
+            if (each.isRunning(configuration)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean hasActiveSessions() {
+        return !sessions.isEmpty();
+    }
+
+    /** Adds the listener that is notified when sessions or their state change. */
+    public void addChangeListener(@NotNull Runnable listener, @NotNull Disposable parentDisposable) {
+        listeners.add(listener);
+        Disposer.register(parentDisposable, () -> listeners.remove(listener));
+    }
+
+    void fireChanged() {
+        for (Runnable each : listeners) {
+            each.run();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.KillableProcess;
+import com.intellij.execution.process.ProcessAdapter;
+import com.intellij.execution.process.ProcessEvent;
+import com.intellij.execution.process.ProcessHandler;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stops the processes of multirun session: independent processes are stopped at once, each process is given
+ * some time to stop gracefully and is killed after that. Processes that don't terminate even then are given up on,
+ * so the processes ordered after them are stopped anyway. The session has single stopper, that shows single progress
+ * for all processes it's stopping at the moment.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class MultirunStopper {
+
+    private static final Logger LOG = Logger.getInstance(MultirunStopper.class);
+
+    /** Time to wait for the process after it was killed, or asked to stop if it can't be killed, before giving up on it. */
+    private static final long GIVE_UP_MILLIS = 10000;
+
+    public enum StopOrder {
+        PARALLEL("All at once"),
+        REVERSE_LAUNCH("In reverse launch order"),
+        REVERSE_DEPENDENCY("Dependents before dependencies");
+
+        private final String displayName;
+
+        StopOrder(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    /** The process to stop, with its launch plan node if known. */
+    public static class StoppedProcess {
+        final ProcessHandler handler;
+        final LaunchPlan.Node node;
+
+        public StoppedProcess(@NotNull ProcessHandler handler, LaunchPlan.Node node) {
+            this.handler = handler;
+            this.node = node;
+        }
+    }
+
+    private final Project project;
+    private final String name;
+    private final StopOrder order;
+    private final double gracefulTimeout;
+    // the number of processes being stopped, and the number of stopped ones, since the progress was shown
+    private final AtomicInteger total = new AtomicInteger(0);
+    private final AtomicInteger stopped = new AtomicInteger(0);
+    // completed when all processes being stopped are terminated or given up on; guarded by this
+    private CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
+    private boolean progressShown = false;
+    private volatile ProgressIndicator progressIndicator;
+
+    public MultirunStopper(Project project, String name, StopOrder order, double gracefulTimeout) {
+        this.project = project;
+        this.name = name;
+        this.order = order;
+        this.gracefulTimeout = gracefulTimeout;
+    }
+
+    /**
+     * Stops the processes, listed in launch order, and shows the progress to user.
+     *
+     * @return the future that is completed when all the processes are terminated.
+     */
+    public CompletableFuture<Void> stop(final List<StoppedProcess> processes) {
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        if (processes.isEmpty()) {
+            result.complete(null);
+            return result;
+        }
+
+        final List<CompletableFuture<Void>> allStopFutures = new ArrayList<>();
+        switch (order) {
+            case REVERSE_LAUNCH: {
+                CompletableFuture<Void> previous = CompletableFuture.completedFuture(null);
+                for (int i = processes.size() - 1; i >= 0; i--) {
+                    final ProcessHandler handler = processes.get(i).handler;
+                    previous = previous.thenCompose(ignored -> stop(handler));
+                    allStopFutures.add(previous);
+                }
+                break;
+            }
+            case REVERSE_DEPENDENCY: {
+                final Map<LaunchPlan.Node, ProcessHandler> nodeProcesses = new HashMap<>();
+                for (StoppedProcess each : processes) {
+                    if (each.node != null) {
+                        nodeProcesses.put(each.node, each.handler);
+                    }
+                }
+                final Map<LaunchPlan.Node, CompletableFuture<Void>> nodeFutures = new HashMap<>();
+                for (StoppedProcess each : processes) {
+                    allStopFutures.add(each.node != null
+                                               ? stopAfterDependents(each.node, nodeProcesses, nodeFutures)
+                                               : stop(each.handler));
+                }
+                break;
+            }
+            default:
+                for (StoppedProcess each : processes) {
+                    allStopFutures.add(stop(each.handler));
+                }
+        }
+        total.addAndGet(processes.size());
+        for (CompletableFuture<Void> each : allStopFutures) {
+            each.whenComplete((ignored, error) -> {
+                stopped.incrementAndGet();
+                updateProgress();
+            });
+        }
+        CompletableFuture.allOf(allStopFutures.toArray(new CompletableFuture[0]))
+                         .whenComplete((ignored, error) -> result.complete(null));
+
+        final boolean showProgress;
+        synchronized (this) {
+            pending = CompletableFuture.allOf(pending, result);
+            showProgress = !progressShown;
+            progressShown = true;
+        }
+        if (showProgress) {
+            showProgress();
+        }
+        return result;
+    }
+
+    /**
+     * Shows the progress until all processes being stopped are terminated, including the ones added to stop meanwhile.
+     * The progress is updated as processes terminate; the wait is limited, as each process is given up on eventually.
+     */
+    private void showProgress() {
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "Stopping '" + name + "'", false) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                indicator.setIndeterminate(false);
+                progressIndicator = indicator;
+                updateProgress();
+                while (true) {
+                    final CompletableFuture<Void> waitFor;
+                    synchronized (MultirunStopper.this) {
+                        waitFor = pending;
+                    }
+                    try {
+                        waitFor.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (ExecutionException e) {
+                        LOG.warn("Failed to stop processes of " + name, e);
+                    }
+                    synchronized (MultirunStopper.this) {
+                        if (pending == waitFor || Thread.currentThread().isInterrupted()) {
+                            progressShown = false;
+                            progressIndicator = null;
+                            total.set(0);
+                            stopped.set(0);
+                            return;
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    private void updateProgress() {
+        final ProgressIndicator indicator = progressIndicator;
+        if (indicator != null) {
+            final int totalCount = total.get();
+            final int stoppedCount = Math.min(stopped.get(), totalCount);
+            indicator.setFraction(totalCount > 0 ? (double) stoppedCount / totalCount : 1);
+            indicator.setText("Stopped " + stoppedCount + " of " + totalCount + " processes");
+        }
+    }
+
+    private CompletableFuture<Void> stopAfterDependents(LaunchPlan.Node node,
+                                                        Map<LaunchPlan.Node, ProcessHandler> nodeProcesses,
+                                                        Map<LaunchPlan.Node, CompletableFuture<Void>> nodeFutures) {
+        final CompletableFuture<Void> existing = nodeFutures.get(node);
+        if (existing != null) {
+            return existing;
+        }
+
+        final List<CompletableFuture<Void>> dependents = new ArrayList<>();
+        for (LaunchPlan.Node each : node.getDependents()) {
+            dependents.add(stopAfterDependents(each, nodeProcesses, nodeFutures));
+        }
+        final ProcessHandler handler = nodeProcesses.get(node);
+        final CompletableFuture<Void> future = CompletableFuture.allOf(dependents.toArray(new CompletableFuture[0]))
+                                                                .thenCompose(ignored -> handler != null
+                                                                        ? stop(handler)
+                                                                        : CompletableFuture.completedFuture(null));
+        nodeFutures.put(node, future);
+        return future;
+    }
+
+    /**
+     * Asks the process to stop, and kills it if it's still running after graceful timeout.
+     * The returned future is completed when the process terminates, or when it's given up on.
+     */
+    private CompletableFuture<Void> stop(final ProcessHandler handler) {
+        final CompletableFuture<Void> terminated = new CompletableFuture<>();
+        handler.addProcessListener(new ProcessAdapter() {
+            @Override
+            public void processTerminated(@NotNull ProcessEvent event) {
+                terminated.complete(null);
+            }
+        });
+        if (handler.isProcessTerminated()) {
+            terminated.complete(null);
+            return terminated;
+        }
+        if (handler instanceof KillableProcess && handler.isProcessTerminating()) {
+            // asked to stop again, while process is still stopping
+            ((KillableProcess) handler).killProcess();
+            giveUpAfter(handler, terminated, GIVE_UP_MILLIS);
+            return terminated;
+        }
+
+        if (handler.detachIsDefault()) {
+            handler.detachProcess();
+            // detached process is not ours to wait for
+            terminated.complete(null);
+            return terminated;
+        }
+
+        handler.destroyProcess();
+        if (gracefulTimeout > 0 && handler instanceof KillableProcess) {
+            final ScheduledFuture<?> kill = AppExecutorUtil.getAppScheduledExecutorService().schedule(() -> {
+                final KillableProcess killableProcess = (KillableProcess) handler;
+                if (!handler.isProcessTerminated() && killableProcess.canKillProcess()) {
+                    LOG.info("Killing process that didn't stop in " + gracefulTimeout + " seconds");
+                    killableProcess.killProcess();
+                }
+            }, (long) (gracefulTimeout * 1000), TimeUnit.MILLISECONDS);
+            terminated.whenComplete((ignored, error) -> kill.cancel(false));
+        }
+        // the process that can't be killed, or is not killed as there's no graceful timeout, could never terminate
+        giveUpAfter(handler, terminated, (long) (Math.max(gracefulTimeout, 0) * 1000) + GIVE_UP_MILLIS);
+        return terminated;
+    }
+
+    /** Completes the future of the process that's still running after the delay, so the next processes are stopped. */
+    private void giveUpAfter(final ProcessHandler handler, final CompletableFuture<Void> terminated, final long delayMillis) {
+        final ScheduledFuture<?> giveUp = AppExecutorUtil.getAppScheduledExecutorService().schedule(() -> {
+            if (terminated.complete(null)) {
+                LOG.warn("Process " + handler + " of " + name + " didn't stop in " + delayMillis + " ms, stopping the next processes");
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+        terminated.whenComplete((ignored, error) -> giveUp.cancel(false));
+    }
+}
@@ -0,0 +1,251 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Output of single process, appended to the file through the small buffer. Keeps the sparse index of line offsets
+ * and capture times, so any line, or the line captured at some time, can be read without reading the file from start.
+ * The file is written and read with positional I/O of single channel, so nothing but the channel is to release.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class ProcessLog {
+
+    private static final Logger LOG = Logger.getInstance(ProcessLog.class);
+
+    /** Number of lines between the indexed lines. */
+    public static final int BLOCK_SIZE = 64;
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
+    /** Receives the lines read from the log; returns false to stop reading. */
+    public interface LineConsumer {
+        boolean line(int number, @NotNull String text);
+    }
+
+    private final String name;
+    private final File file;
+    private final FileChannel channel;
+    // the output that's not written to the file yet; guarded by this
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+    // the length of output, including the buffered one, and the length written to the file
+    private volatile long length = 0;
+    private volatile long writtenLength = 0;
+    private volatile int lineCount = 0;
+    // offset and capture time of each BLOCK_SIZE-th line; guarded by this
+    private long[] blockOffsets = new long[16];
+    private long[] blockTimes = new long[16];
+    private int blockCount = 0;
+    private boolean closed = false;
+
+    public ProcessLog(@NotNull String name, @NotNull File file) throws IOException {
+        this.name = name;
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        addBlock(0);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /** Gets the number of complete lines in the log. */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    /** Appends the output to the log, and indexes the lines that start in it. */
+    public synchronized void append(@NotNull String text) {
+        if (closed) return;
+
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        try {
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!writeBuffer.hasRemaining()) {
+                    flush();
+                }
+                final int count = Math.min(writeBuffer.remaining(), bytes.length - offset);
+                writeBuffer.put(bytes, offset, count);
+                for (int i = offset; i < offset + count; i++) {
+                    if (bytes[i] == '\n') {
+                        lineCount++;
+                        if (lineCount % BLOCK_SIZE == 0) {
+                            addBlock(length + (i - offset) + 1);
+                        }
+                    }
+                }
+                offset += count;
+                length += count;
+            }
+        } catch (IOException e) {
+            LOG.warn("Failed to write output of " + name + " to " + file, e);
+            closed = true;
+        }
+    }
+
+    /** Writes the buffered output to the file, and returns the length of the file. */
+    private synchronized long flush() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            writtenLength += channel.write(writeBuffer, writtenLength);
+        }
+        writeBuffer.clear();
+        return writtenLength;
+    }
+
+    private void addBlock(long offset) {
+        if (blockCount == blockOffsets.length) {
+            blockOffsets = Arrays.copyOf(blockOffsets, blockCount * 2);
+            blockTimes = Arrays.copyOf(blockTimes, blockCount * 2);
+        }
+        blockOffsets[blockCount] = offset;
+        blockTimes[blockCount] = System.currentTimeMillis();
+        blockCount++;
+    }
+
+    /** Reads the block of lines, that starts with the line number {@code block * BLOCK_SIZE}. */
+    public List<String> readBlock(int block) throws IOException {
+        final long offset;
+        synchronized (this) {
+            if (block < 0 || block >= blockCount) {
+                return new ArrayList<>();
+            }
+            offset = blockOffsets[block];
+        }
+        final List<String> result = new ArrayList<>(BLOCK_SIZE);
+        scan(offset, block * BLOCK_SIZE, (number, text) -> {
+            result.add(text);
+            return result.size() < BLOCK_SIZE;
+        });
+        return result;
+    }
+
+    /** Gets the number of the first line captured at or after the time, or the line count if there is no such line. */
+    public synchronized int findLine(long time) {
+        int low = 0;
+        int high = blockCount - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (blockTimes[middle] < time) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        // the block before the found one may have lines captured after the time too
+        return Math.min(Math.max(0, low - 1) * BLOCK_SIZE, lineCount);
+    }
+
+    /** Reads all complete lines of the log, starting at the line number, until consumer asks to stop. */
+    public void readLines(int fromLine, @NotNull LineConsumer consumer) throws IOException {
+        final int block = fromLine / BLOCK_SIZE;
+        final long offset;
+        synchronized (this) {
+            if (block >= blockCount) return;
+            offset = blockOffsets[block];
+        }
+        scan(offset, block * BLOCK_SIZE, (number, text) -> number < fromLine || consumer.line(number, text));
+    }
+
+    /** Reads the complete lines starting at the offset, through the buffer that's filled with positional reads. */
+    private void scan(long offset, int firstLine, LineConsumer consumer) throws IOException {
+        final long end = flush();
+        final ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(1, Math.min(READ_BUFFER_SIZE, end - offset)));
+        final byte[] bytes = buffer.array();
+        long position = offset;
+        int number = firstLine;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0) {
+                // read until the buffer is filled
+            }
+            final int size = buffer.position();
+            if (size == 0) {
+                return;
+            }
+            int lineStart = 0;
+            for (int i = 0; i < size; i++) {
+                if (bytes[i] == '\n') {
+                    if (!consumer.line(number++, decode(bytes, lineStart, i))) {
+                        return;
+                    }
+                    lineStart = i + 1;
+                }
+            }
+            if (lineStart == 0) {
+                if (size < buffer.capacity()) {
+                    // the rest is the line that's not complete yet
+                    return;
+                }
+                // the line is longer than the buffer, so it's split
+                if (!consumer.line(number++, decode(bytes, 0, size))) {
+                    return;
+                }
+                lineStart = size;
+            }
+            position += lineStart;
+        }
+    }
+
+    private static String decode(byte[] bytes, int start, int end) {
+        final int lineEnd = end > start && bytes[end - 1] == '\r' ? end - 1 : end;
+        return new String(bytes, start, lineEnd - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Stops writing to the log, while it still can be read. The file is cut to the written length,
+     * in case it had been longer before.
+     */
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            channel.truncate(flush());
+        } catch (IOException e) {
+            LOG.warn("Failed to write output of " + name + " to " + file, e);
+        }
+    }
+
+    /** Closes the file and deletes it. */
+    public synchronized void dispose() {
+        try {
+            close();
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close " + file, e);
+            }
+        }
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,168 @@
+package com.khmelyuk.multirun;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The condition that tells the run configuration is ready, so configurations that depend on it can be started.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class ReadinessProbe {
+
+    public static final ReadinessProbe NONE = new ReadinessProbe(Type.NONE, "", 0);
+    public static final double DEFAULT_TIMEOUT = 60;
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 500;
+
+    public enum Type {
+        NONE("None"),
+        LOG_PATTERN("Console output matches"),
+        TCP_PORT("Port accepts connections"),
+        HTTP("HTTP request returns 200"),
+        FILE("File exists");
+
+        private final String displayName;
+
+        Type(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    private final Type type;
+    private final String value;
+    private final double timeout;
+    private final Pattern pattern;
+
+    public ReadinessProbe(@NotNull Type type, @NotNull String value, double timeout) {
+        this.type = type;
+        this.value = value;
+        this.timeout = timeout;
+        this.pattern = type == Type.LOG_PATTERN ? compile(value) : null;
+    }
+
+    @Nullable
+    private static Pattern compile(String value) {
+        try {
+            return Pattern.compile(value);
+        } catch (PatternSyntaxException e) {
+            return null;
+        }
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /** Gets the timeout in seconds to wait for the configuration to become ready. */
+    public double getTimeout() {
+        return timeout;
+    }
+
+    public boolean isNone() {
+        return type == Type.NONE;
+    }
+
+    /** Checks whether the probe is satisfied by the text printed to the console by process. */
+    public boolean matches(String text) {
+        return pattern != null && text != null && pattern.matcher(text).find();
+    }
+
+    /** Checks whether the probe is satisfied right now. Log pattern probes are checked with {@link #matches(String)} instead. */
+    public boolean check() {
+        switch (type) {
+            case TCP_PORT:
+                return checkPort();
+            case HTTP:
+                return checkHttp();
+            case FILE:
+                return new File(value).exists();
+            default:
+                return false;
+        }
+    }
+
+    private boolean checkPort() {
+        String host = "localhost";
+        String port = value.trim();
+        final int separator = port.lastIndexOf(':');
+        if (separator != -1) {
+            host = port.substring(0, separator);
+            port = port.substring(separator + 1);
+        }
+
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, Integer.parseInt(port)), CONNECT_TIMEOUT_MILLIS);
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private boolean checkHttp() {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(value.trim()).openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+            connection.setReadTimeout(CONNECT_TIMEOUT_MILLIS);
+            return connection.getResponseCode() == HttpURLConnection.HTTP_OK;
+        } catch (IOException | ClassCastException e) {
+            return false;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /** Gets the problem with the probe settings, or null if probe is valid. */
+    @Nullable
+    public String validate() {
+        switch (type) {
+            case LOG_PATTERN:
+                return pattern == null ? "Invalid regular expression: " + value : null;
+            case TCP_PORT:
+                final String port = value.substring(value.lastIndexOf(':') + 1).trim();
+                try {
+                    Integer.parseInt(port);
+                    return null;
+                } catch (NumberFormatException e) {
+                    return "Invalid port: " + value;
+                }
+            case HTTP:
+                try {
+                    new URL(value.trim());
+                    return null;
+                } catch (IOException e) {
+                    return "Invalid URL: " + value;
+                }
+            case FILE:
+                return value.trim().isEmpty() ? "File path is empty" : null;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return isNone() ? type.toString() : type + " '" + value + "'";
+    }
+}
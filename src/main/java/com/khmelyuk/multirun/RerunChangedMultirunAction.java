@@ -0,0 +1,66 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The action to restart the running configurations of active multirun sessions, which modules were compiled again
+ * after the configurations were started. The rest of configurations keep running.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class RerunChangedMultirunAction extends AnAction {
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        final Project project = e.getProject();
+        e.getPresentation().setEnabled(project != null && MultirunSessions.getInstance(project).hasActiveSessions());
+    }
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        final Project project = e.getProject();
+        if (project == null) return;
+
+        new Task.Backgroundable(project, "Finding changed configurations", true) {
+            private final Map<MultirunSession, List<LaunchPlan.Node>> changed = new LinkedHashMap<>();
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                for (MultirunSession session : MultirunSessions.getInstance(project).getSessions()) {
+                    for (Map.Entry<LaunchPlan.Node, Long> each : session.getRunningNodes().entrySet()) {
+                        indicator.checkCanceled();
+                        if (MultirunRerun.isRebuiltSince(each.getKey().getConfiguration(), each.getValue())) {
+                            changed.computeIfAbsent(session, key -> new ArrayList<>()).add(each.getKey());
+                        }
+                    }
+                }
+            }
+
+            @Override
+            public void onSuccess() {
+                if (changed.isEmpty()) {
+                    Messages.showInfoMessage(project, "No running configuration was compiled again since it was started.", "Rerun Changed");
+                    return;
+                }
+                for (Map.Entry<MultirunSession, List<LaunchPlan.Node>> each : changed.entrySet()) {
+                    final MultirunSession session = each.getKey();
+                    final LaunchPlan launchPlan = session.getLaunchPlan().subset(each.getValue(), false);
+                    session.stopProcesses(each.getValue()).thenRun(
+                            () -> ApplicationManager.getApplication().invokeLater(() -> MultirunRerun.launch(session, launchPlan)));
+                }
+            }
+        }.queue();
+    }
+}
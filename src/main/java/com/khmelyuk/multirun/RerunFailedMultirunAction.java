@@ -0,0 +1,60 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The action to start again the configurations that failed in the latest session of multirun configuration,
+ * and the configurations that depend on them. Configurations that are running already are left alone.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class RerunFailedMultirunAction extends AnAction {
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        final Project project = e.getProject();
+        e.getPresentation().setEnabled(project != null && findSessionWithFailures(project) != null);
+    }
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        final Project project = e.getProject();
+        if (project == null) return;
+
+        final MultirunSession session = findSessionWithFailures(project);
+        if (session == null) return;
+
+        final Set<LaunchPlan.Node> failed = session.getFailed();
+        failed.removeAll(session.getRunningNodes().keySet());
+        MultirunRerun.launch(session, session.getLaunchPlan().subset(failed, true));
+    }
+
+    /**
+     * Gets the latest session that has failed configurations, which are not running again.
+     * Only the latest session of each multirun configuration is checked, as configurations failed in the older sessions
+     * could have been started again since. Sessions without failures are skipped before looking at their processes,
+     * so the check is cheap enough for every update of the action.
+     */
+    @Nullable
+    private static MultirunSession findSessionWithFailures(Project project) {
+        final Set<RunConfigurationKey> checked = new HashSet<>();
+        for (MultirunSession each : MultirunSessions.getInstance(project).getRecentSessions()) {
+            if (!checked.add(RunConfigurationKey.of(each.getConfiguration())) || !each.hasFailed()) {
+                continue;
+            }
+            final Set<LaunchPlan.Node> failed = each.getFailed();
+            failed.removeAll(each.getRunningNodes().keySet());
+            if (!failed.isEmpty()) {
+                return each;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,172 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.process.ProcessHandler;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Samples CPU and resident memory of the processes of multirun session, each counted together with its child processes.
+ * Processes of all sessions are sampled on the same single background thread, one batch per session and interval.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class ResourceMonitor {
+
+    private static final ScheduledExecutorService SAMPLER =
+            AppExecutorUtil.createBoundedScheduledExecutorService("Multirun Resource Monitor", 1);
+
+    /** The usage of resources by the process and its child processes, between two samples. */
+    public static class Usage {
+        private final ProcessHandler process;
+        private final String name;
+        private final long pid;
+        private final double cpu;
+        private final long rss;
+        private final long peakRss;
+
+        Usage(ProcessHandler process, String name, long pid, double cpu, long rss, long peakRss) {
+            this.process = process;
+            this.name = name;
+            this.pid = pid;
+            this.cpu = cpu;
+            this.rss = rss;
+            this.peakRss = peakRss;
+        }
+
+        public ProcessHandler getProcess() {
+            return process;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** Gets the id of the process, or -1 if it's unknown. */
+        public long getPid() {
+            return pid;
+        }
+
+        /** Gets the CPU usage in percents of single CPU, so the process that keeps two CPUs busy uses 200%. */
+        public double getCpu() {
+            return cpu;
+        }
+
+        /** Gets the resident memory in bytes, or -1 if it's unknown. */
+        public long getRss() {
+            return rss;
+        }
+
+        /** Gets the max resident memory in bytes seen since the process was started, or -1 if it's unknown. */
+        public long getPeakRss() {
+            return peakRss;
+        }
+
+        @Override
+        public String toString() {
+            return rss >= 0
+                    ? String.format("%.0f%% CPU, %s", cpu, formatBytes(rss))
+                    : String.format("%.0f%% CPU", cpu);
+        }
+    }
+
+    private final MultirunSession session;
+    private final long intervalMillis;
+    private final Consumer<List<Usage>> listener;
+    // the state of the previous sample, accessed on the sampler thread only
+    private Map<Long, Long> lastCpu = new HashMap<Long, Long>();
+    private long lastTime = 0;
+    private final Map<ProcessHandler, Long> peakRss = new HashMap<ProcessHandler, Long>();
+    private volatile List<Usage> usages = Collections.emptyList();
+    private volatile ScheduledFuture<?> sampling;
+
+    /**
+     * @param intervalMillis time between the samples.
+     * @param listener       receives the usage of all running processes after each sample, on the sampler thread.
+     */
+    public ResourceMonitor(@NotNull MultirunSession session, long intervalMillis, @NotNull Consumer<List<Usage>> listener) {
+        this.session = session;
+        this.intervalMillis = intervalMillis;
+        this.listener = listener;
+    }
+
+    public synchronized void start() {
+        if (sampling == null) {
+            sampling = SAMPLER.scheduleWithFixedDelay(this::sample, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+        if (sampling != null) {
+            sampling.cancel(false);
+        }
+    }
+
+    /** Gets the usage of the running processes at the latest sample, in the order they were started. */
+    public List<Usage> getUsages() {
+        return usages;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    private void sample() {
+        final long time = System.nanoTime();
+        final double elapsed = lastTime != 0 ? time - lastTime : 0;
+        lastTime = time;
+
+        final Map<Long, Long> cpu = new HashMap<Long, Long>();
+        final List<Usage> result = new ArrayList<Usage>();
+        for (Map.Entry<ProcessHandler, LaunchPlan.Node> entry : session.getProcessNodes().entrySet()) {
+            final ProcessHandler process = entry.getKey();
+            if (process.isProcessTerminating() || process.isProcessTerminated()) {
+                continue;
+            }
+            final List<Long> pids = SystemLoad.getProcessTree(process);
+            long busyNanos = 0;
+            long rss = -1;
+            for (long pid : pids) {
+                final long cpuNanos = SystemLoad.readProcessCpu(pid);
+                if (cpuNanos >= 0) {
+                    cpu.put(pid, cpuNanos);
+                    final Long lastCpuNanos = lastCpu.get(pid);
+                    if (lastCpuNanos != null) {
+                        busyNanos += Math.max(0, cpuNanos - lastCpuNanos);
+                    }
+                }
+                final long pidRss = SystemLoad.readProcessRss(pid);
+                if (pidRss >= 0) {
+                    rss = Math.max(rss, 0) + pidRss;
+                }
+            }
+            final long peak = Math.max(rss, peakRss.getOrDefault(process, -1L));
+            peakRss.put(process, peak);
+
+            final String name = entry.getValue() != null ? entry.getValue().getName() : process.toString();
+            result.add(new Usage(process, name, pids.isEmpty() ? -1 : pids.get(0),
+                                 elapsed > 0 ? busyNanos * 100 / elapsed : 0, rss, peak));
+        }
+        lastCpu = cpu;
+        peakRss.keySet().removeIf(ProcessHandler::isProcessTerminated);
+
+        usages = Collections.unmodifiableList(result);
+        listener.accept(usages);
+    }
+
+    public static String formatBytes(long bytes) {
+        if (bytes >= 1024L * 1024 * 1024) {
+            return String.format("%.1f GB", bytes / (1024.0 * 1024 * 1024));
+        }
+        return String.format("%d MB", bytes / (1024 * 1024));
+    }
+}
@@ -0,0 +1,87 @@
+package com.khmelyuk.multirun;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * When and how often the crashed run configuration is restarted. The delay before restart grows twice after each crash
+ * within the window, and restarts stop once there were too many crashes within the window.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class RestartPolicy {
+
+    public static final RestartPolicy NONE = new RestartPolicy(false, 1, 60, 5, 300);
+
+    private final boolean enabled;
+    private final double initialDelay;
+    private final double maxDelay;
+    private final int maxRestarts;
+    private final double window;
+
+    /**
+     * @param enabled      whether to restart the configuration that exited with non-zero code.
+     * @param initialDelay delay in seconds before the first restart.
+     * @param maxDelay     max delay in seconds before restart.
+     * @param maxRestarts  max number of restarts within the window; restarts stop when it's exceeded.
+     * @param window       the window in seconds to count restarts in.
+     */
+    public RestartPolicy(boolean enabled, double initialDelay, double maxDelay, int maxRestarts, double window) {
+        this.enabled = enabled;
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+        this.maxRestarts = maxRestarts;
+        this.window = window;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public double getInitialDelay() {
+        return initialDelay;
+    }
+
+    public double getMaxDelay() {
+        return maxDelay;
+    }
+
+    public int getMaxRestarts() {
+        return maxRestarts;
+    }
+
+    public double getWindow() {
+        return window;
+    }
+
+    /** Gets the delay in millis before restart, after the number of crashes within the window. */
+    public long getDelayMillis(int crashes) {
+        final double delay = initialDelay * Math.pow(2, Math.max(0, crashes - 1));
+        return (long) (Math.min(delay, maxDelay) * 1000);
+    }
+
+    /** Checks the policy is correct, and returns the problem description if it's not. */
+    @Nullable
+    public String validate() {
+        if (!enabled) {
+            return null;
+        }
+        if (initialDelay < 0 || maxDelay < initialDelay) {
+            return "Max delay should be not less than initial delay";
+        }
+        if (maxRestarts <= 0) {
+            return "Max restarts should be a positive number";
+        }
+        if (window <= 0) {
+            return "Window should be a positive number";
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        if (!enabled) {
+            return "no restart";
+        }
+        return "restart up to " + maxRestarts + " times in " + window + "s";
+    }
+}
@@ -1,22 +1,15 @@
 package com.khmelyuk.multirun;
 
-import com.intellij.execution.configurations.RunConfiguration;
-
 public class RunConfigurationHelper {
 
-    /** This to avoid problems with one multirun configuration A contains multirun configuration B, which itself contains A. */
+    /**
+     * This to avoid problems with one multirun configuration A contains multirun configuration B, which itself contains A.
+     * Checks whether the configuration is or includes the target configuration, directly or through nested configurations.
+     */
     public static boolean containsLoopies(MultirunRunConfiguration configuration, MultirunRunConfiguration target) {
         if (configuration.equals(target)) {
             return true;
         }
-        for (RunConfiguration each : configuration.getRunConfigurations()) {
-            if (each.equals(target)) {
-                return true;
-            }
-            if (each instanceof MultirunRunConfiguration) {
-                return containsLoopies((MultirunRunConfiguration) each, target);
-            }
-        }
-        return false;
+        return MultirunGraph.getInstance(configuration.getProject()).reaches(configuration, target);
     }
 }
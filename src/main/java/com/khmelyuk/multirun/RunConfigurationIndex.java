@@ -0,0 +1,167 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.RunManager;
+import com.intellij.execution.RunManagerListener;
+import com.intellij.execution.RunnerAndConfigurationSettings;
+import com.intellij.execution.configurations.ConfigurationType;
+import com.intellij.execution.configurations.RunConfiguration;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Index of the project run configurations by their name and type, shared by all multirun configurations in the project.
+ * The index is built on first use and then kept up to date with run manager events. All configurations with the same key
+ * are indexed, so if the one that's found is removed or renamed, the next one with the same name is found instead.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class RunConfigurationIndex implements Disposable {
+
+    private final Supplier<List<RunConfiguration>> allConfigurations;
+    // configurations with the key, in the order they were added; the lists are replaced, never changed
+    private final Map<RunConfigurationKey, List<RunConfiguration>> configurations = new ConcurrentHashMap<>();
+    // keys the configurations were indexed with, to find them after rename
+    private final Map<RunConfiguration, RunConfigurationKey> keys = Collections.synchronizedMap(new IdentityHashMap<>());
+    private volatile boolean built = false;
+
+    public RunConfigurationIndex(Project project) {
+        this(() -> RunManager.getInstance(project).getAllConfigurationsList());
+
+        project.getMessageBus().connect(this).subscribe(RunManagerListener.TOPIC, new RunManagerListener() {
+            @Override
+            public void runConfigurationAdded(@NotNull RunnerAndConfigurationSettings settings) {
+                if (built) {
+                    add(settings.getConfiguration());
+                }
+            }
+
+            @Override
+            public void runConfigurationRemoved(@NotNull RunnerAndConfigurationSettings settings) {
+                if (built) {
+                    remove(settings.getConfiguration());
+                }
+            }
+
+            @Override
+            public void runConfigurationChanged(@NotNull RunnerAndConfigurationSettings settings) {
+                if (built) {
+                    // configuration could be renamed
+                    remove(settings.getConfiguration());
+                    add(settings.getConfiguration());
+                }
+            }
+
+            @Override
+            public void stateLoaded(@NotNull RunManager runManager, boolean isFirstLoadState) {
+                invalidate();
+            }
+        });
+    }
+
+    /** Creates the index of the configurations, which is not kept up to date with run manager; used by benchmarks. */
+    RunConfigurationIndex(@NotNull Supplier<List<RunConfiguration>> allConfigurations) {
+        this.allConfigurations = allConfigurations;
+    }
+
+    public static RunConfigurationIndex getInstance(@NotNull Project project) {
+        return project.getService(RunConfigurationIndex.class);
+    }
+
+    /** Finds the run configuration by key, or returns null if there is no such configuration in the project. */
+    @Nullable
+    public RunConfiguration find(@NotNull RunConfigurationKey key) {
+        ensureBuilt();
+        final List<RunConfiguration> result = configurations.get(key);
+        return result != null ? result.get(0) : null;
+    }
+
+    /** Finds the id of run configuration type by its display name, as it was used to reference configurations before. */
+    @Nullable
+    public static String findTypeId(@Nullable String typeDisplayName) {
+        if (typeDisplayName == null) {
+            return null;
+        }
+        for (ConfigurationType each : ConfigurationType.CONFIGURATION_TYPE_EP.getExtensionList()) {
+            if (typeDisplayName.equals(each.getDisplayName())) {
+                return each.getId();
+            }
+        }
+        return null;
+    }
+
+    private void ensureBuilt() {
+        if (built) {
+            return;
+        }
+        synchronized (this) {
+            if (!built) {
+                for (RunConfiguration each : allConfigurations.get()) {
+                    add(each);
+                }
+                built = true;
+            }
+        }
+    }
+
+    private void add(RunConfiguration configuration) {
+        final RunConfigurationKey key = RunConfigurationKey.of(configuration);
+        // the first configuration wins if there are few with the same name
+        configurations.compute(key, (k, list) -> {
+            if (list == null) {
+                return Collections.singletonList(configuration);
+            }
+            if (containsSame(list, configuration)) {
+                return list;
+            }
+            final List<RunConfiguration> result = new ArrayList<>(list);
+            result.add(configuration);
+            return result;
+        });
+        keys.put(configuration, key);
+    }
+
+    private void remove(RunConfiguration configuration) {
+        final RunConfigurationKey key = keys.remove(configuration);
+        if (key != null) {
+            configurations.computeIfPresent(key, (k, list) -> {
+                final List<RunConfiguration> result = new ArrayList<>(list.size());
+                for (RunConfiguration each : list) {
+                    if (each != configuration) {
+                        result.add(each);
+                    }
+                }
+                return result.isEmpty() ? null : result;
+            });
+        }
+    }
+
+    private static boolean containsSame(List<RunConfiguration> list, RunConfiguration configuration) {
+        for (RunConfiguration each : list) {
+            if (each == configuration) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void invalidate() {
+        built = false;
+        configurations.clear();
+        keys.clear();
+    }
+
+    @Override
+    public void dispose() {
+        invalidate();
+    }
+}
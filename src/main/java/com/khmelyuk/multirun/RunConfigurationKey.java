@@ -0,0 +1,52 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.configurations.RunConfiguration;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+/**
+ * Identifies run configuration by its name and type id.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public final class RunConfigurationKey {
+
+    private final String name;
+    private final String typeId;
+
+    public RunConfigurationKey(@NotNull String name, @NotNull String typeId) {
+        this.name = name;
+        this.typeId = typeId;
+    }
+
+    public static RunConfigurationKey of(@NotNull RunConfiguration configuration) {
+        return new RunConfigurationKey(configuration.getName(), configuration.getType().getId());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTypeId() {
+        return typeId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RunConfigurationKey)) return false;
+        RunConfigurationKey that = (RunConfigurationKey) o;
+        return name.equals(that.name) && typeId.equals(that.typeId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, typeId);
+    }
+
+    @Override
+    public String toString() {
+        return typeId + ":" + name;
+    }
+}
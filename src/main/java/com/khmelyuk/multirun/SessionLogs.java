@@ -0,0 +1,147 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.process.ProcessAdapter;
+import com.intellij.execution.process.ProcessEvent;
+import com.intellij.execution.process.ProcessHandler;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+/**
+ * Output of each process of multirun session, captured into its own file in the temp directory,
+ * so it can be searched and viewed without keeping it in memory.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class SessionLogs {
+
+    private static final Logger LOG = Logger.getInstance(SessionLogs.class);
+
+    /** The line of the log that matches the search. */
+    public static class Match {
+        private final ProcessLog log;
+        private final int line;
+        private final String text;
+
+        Match(ProcessLog log, int line, String text) {
+            this.log = log;
+            this.line = line;
+            this.text = text;
+        }
+
+        public ProcessLog getLog() {
+            return log;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+
+    private final String name;
+    private final List<ProcessLog> logs = new CopyOnWriteArrayList<>();
+    private File directory;
+    private volatile boolean disposed = false;
+
+    public SessionLogs(@NotNull String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Captures the output of the process into new log file, until the process is terminated. */
+    public void capture(@NotNull ProcessHandler process, @NotNull String processName) {
+        final ProcessLog log = createLog(processName);
+        if (log == null) return;
+
+        process.addProcessListener(new ProcessAdapter() {
+            @Override
+            public void onTextAvailable(@NotNull ProcessEvent event, @NotNull Key outputType) {
+                log.append(event.getText());
+            }
+
+            @Override
+            public void processTerminated(@NotNull ProcessEvent event) {
+                log.close();
+            }
+        });
+    }
+
+    @Nullable
+    private synchronized ProcessLog createLog(String processName) {
+        if (disposed) return null;
+        try {
+            if (directory == null) {
+                directory = FileUtil.createTempDirectory("multirun-" + FileUtil.sanitizeFileName(name), null, true);
+            }
+            final File file = new File(directory, FileUtil.sanitizeFileName(processName) + "-" + (logs.size() + 1) + ".log");
+            final ProcessLog log = new ProcessLog(processName, file);
+            logs.add(log);
+            return log;
+        } catch (IOException e) {
+            LOG.warn("Failed to create log file for " + processName, e);
+            return null;
+        }
+    }
+
+    /** Gets the logs in the order the processes were started. */
+    public List<ProcessLog> getLogs() {
+        return new ArrayList<>(logs);
+    }
+
+    /**
+     * Finds the lines that match the pattern in all logs of the session.
+     * Reads the files, so must be called on the background thread.
+     *
+     * @param maxMatches the max number of matches to find.
+     */
+    public List<Match> search(@NotNull Pattern pattern, int maxMatches, @NotNull ProgressIndicator indicator) {
+        final List<Match> result = new ArrayList<>();
+        final List<ProcessLog> logsToSearch = getLogs();
+        for (int i = 0; i < logsToSearch.size() && result.size() < maxMatches; i++) {
+            final ProcessLog log = logsToSearch.get(i);
+            indicator.setText("Searching in " + log.getName());
+            indicator.setFraction((double) i / logsToSearch.size());
+            try {
+                log.readLines(0, (number, text) -> {
+                    if (pattern.matcher(text).find()) {
+                        result.add(new Match(log, number, text));
+                    }
+                    return result.size() < maxMatches && !indicator.isCanceled();
+                });
+            } catch (IOException e) {
+                LOG.warn("Failed to search in " + log.getFile(), e);
+            }
+            indicator.checkCanceled();
+        }
+        return result;
+    }
+
+    /** Closes and deletes all log files of the session. */
+    public synchronized void dispose() {
+        disposed = true;
+        for (ProcessLog each : logs) {
+            each.dispose();
+        }
+        logs.clear();
+        if (directory != null) {
+            FileUtil.delete(directory);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.BeforeRunTask;
+import com.intellij.execution.BeforeRunTaskProvider;
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.Executor;
+import com.intellij.execution.RunManagerEx;
+import com.intellij.execution.configurations.ModuleRunProfile;
+import com.intellij.execution.configurations.RunConfiguration;
+import com.intellij.execution.runners.ExecutionEnvironment;
+import com.intellij.execution.runners.ExecutionEnvironmentBuilder;
+import com.intellij.openapi.actionSystem.DataContext;
+import com.intellij.openapi.actionSystem.impl.SimpleDataContext;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.task.ProjectTaskManager;
+import org.jetbrains.concurrency.CancellablePromise;
+import org.jetbrains.concurrency.Promise;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Before launch tasks of all configurations started by multirun, that are run once before starting the configurations.
+ * Equal tasks are run only once. All build tasks are replaced with the single build of the modules of all configurations.
+ * Tasks of different providers are run in parallel, while tasks of the same provider are run one by one,
+ * as they may share the same resources, like build daemon.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class SharedBeforeRunTasks {
+
+    private static final Logger LOG = Logger.getInstance(SharedBeforeRunTasks.class);
+
+    // providers of the tasks that build the modules of the configuration
+    private static final String BUILD_PROVIDER_ID = "Make";
+    private static final String BUILD_NO_ERROR_CHECK_PROVIDER_ID = "MakeNoErrorCheck";
+    private static final Set<String> BUILD_PROVIDER_IDS = Set.of(BUILD_PROVIDER_ID, BUILD_NO_ERROR_CHECK_PROVIDER_ID);
+    private static final long BUILD_POLL_MILLIS = 200;
+
+    private final Project project;
+    private final Executor executor;
+    // unique tasks, with the configuration that has the task
+    private final Map<BeforeRunTask<?>, RunConfiguration> tasks = new LinkedHashMap<>();
+    // configurations that have any before launch task
+    private final Set<RunConfiguration> configurationsWithTasks = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Module> modulesToBuild = new LinkedHashSet<>();
+    private boolean build = false;
+    private boolean buildAll = false;
+    // whether any configuration asked to build with error check, so the configurations are not started if the build fails
+    private boolean checkBuildErrors = false;
+
+    private SharedBeforeRunTasks(Project project, Executor executor) {
+        this.project = project;
+        this.executor = executor;
+    }
+
+    /** Collects enabled before launch tasks of the configurations. */
+    public static SharedBeforeRunTasks collect(Project project, Executor executor, List<RunConfiguration> configurations) {
+        final SharedBeforeRunTasks result = new SharedBeforeRunTasks(project, executor);
+        final RunManagerEx runManager = RunManagerEx.getInstanceEx(project);
+        for (RunConfiguration configuration : configurations) {
+            for (BeforeRunTask<?> task : runManager.getBeforeRunTasks(configuration)) {
+                if (!task.isEnabled()) {
+                    continue;
+                }
+                result.configurationsWithTasks.add(configuration);
+                if (BUILD_PROVIDER_IDS.contains(task.getProviderId().toString())) {
+                    result.addBuild(configuration, BUILD_PROVIDER_ID.equals(task.getProviderId().toString()));
+                } else {
+                    result.tasks.putIfAbsent(task, configuration);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void addBuild(RunConfiguration configuration, boolean checkErrors) {
+        build = true;
+        checkBuildErrors |= checkErrors;
+        final Module[] modules = configuration instanceof ModuleRunProfile
+                ? ((ModuleRunProfile) configuration).getModules()
+                : Module.EMPTY_ARRAY;
+        if (modules.length == 0) {
+            // don't know what configuration needs, so build everything
+            buildAll = true;
+        }
+        Collections.addAll(modulesToBuild, modules);
+    }
+
+    public boolean isEmpty() {
+        return configurationsWithTasks.isEmpty();
+    }
+
+    /** Gets the number of tasks to run, with all the builds counted as one. */
+    public int size() {
+        return tasks.size() + (build ? 1 : 0);
+    }
+
+    /**
+     * Runs the tasks: the build first, and the other tasks after it.
+     * Must be called on the background thread, as it waits for the tasks to complete.
+     *
+     * @return true if all tasks completed successfully.
+     */
+    public boolean run(ProgressIndicator indicator) {
+        if (build) {
+            indicator.setText("Building");
+            if (!runBuild(indicator)) {
+                return false;
+            }
+        }
+
+        // tasks of the same provider are run one by one
+        final Map<String, List<BeforeRunTask<?>>> tasksByProvider = new LinkedHashMap<>();
+        for (BeforeRunTask<?> each : tasks.keySet()) {
+            tasksByProvider.computeIfAbsent(each.getProviderId().toString(), id -> new ArrayList<>()).add(each);
+        }
+
+        final AtomicBoolean success = new AtomicBoolean(true);
+        final List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (List<BeforeRunTask<?>> providerTasks : tasksByProvider.values()) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (BeforeRunTask<?> each : providerTasks) {
+                    if (!success.get() || indicator.isCanceled()) {
+                        return;
+                    }
+                    indicator.setText("Running " + describe(each));
+                    if (!runTask(each)) {
+                        success.set(false);
+                    }
+                }
+            }, command -> ApplicationManager.getApplication().executeOnPooledThread(command)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        return success.get() && !indicator.isCanceled();
+    }
+
+    /**
+     * Runs the shared build, waiting for it with the indicator checked, so user can cancel it.
+     * The build with errors fails only if any of configurations asked to build with error check.
+     */
+    private boolean runBuild(ProgressIndicator indicator) {
+        final AtomicReference<Promise<ProjectTaskManager.Result>> build = new AtomicReference<>();
+        ApplicationManager.getApplication().invokeAndWait(() -> {
+            final ProjectTaskManager taskManager = ProjectTaskManager.getInstance(project);
+            build.set(buildAll
+                              ? taskManager.buildAllModules()
+                              : taskManager.build(modulesToBuild.toArray(Module.EMPTY_ARRAY)));
+        });
+
+        while (true) {
+            try {
+                indicator.checkCanceled();
+            } catch (ProcessCanceledException e) {
+                if (build.get() instanceof CancellablePromise) {
+                    ((CancellablePromise<?>) build.get()).cancel();
+                }
+                throw e;
+            }
+            try {
+                final ProjectTaskManager.Result result = build.get().blockingGet((int) BUILD_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                return result != null && !result.isAborted() && !(checkBuildErrors && result.hasErrors());
+            } catch (TimeoutException e) {
+                // still building
+            } catch (java.util.concurrent.ExecutionException e) {
+                LOG.warn("Failed to build before starting configurations", e);
+                return false;
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private boolean runTask(BeforeRunTask task) {
+        final RunConfiguration configuration = tasks.get(task);
+        final BeforeRunTaskProvider provider = BeforeRunTaskProvider.getProvider(project, task.getProviderId());
+        if (provider == null) {
+            LOG.warn("Before launch task provider is not found: " + task.getProviderId());
+            return false;
+        }
+
+        try {
+            final ExecutionEnvironment environment = ExecutionEnvironmentBuilder.create(executor, configuration).build();
+            final DataContext dataContext = SimpleDataContext.getProjectContext(project);
+            return provider.executeTask(dataContext, configuration, environment, task);
+        } catch (ExecutionException e) {
+            LOG.warn("Failed to run before launch task " + describe(task), e);
+            return false;
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private String describe(BeforeRunTask task) {
+        final BeforeRunTaskProvider provider = BeforeRunTaskProvider.getProvider(project, task.getProviderId());
+        return provider != null ? provider.getDescription(task) : task.getProviderId().toString();
+    }
+
+    /**
+     * Gets the configuration to start after the shared tasks were run:
+     * the copy of configuration without before launch tasks, so they are not run again.
+     */
+    public RunConfiguration withoutBeforeRunTasks(RunConfiguration configuration) {
+        if (!configurationsWithTasks.contains(configuration)) {
+            return configuration;
+        }
+        final RunConfiguration result = configuration.clone();
+        result.setBeforeRunTasks(Collections.emptyList());
+        return result;
+    }
+}
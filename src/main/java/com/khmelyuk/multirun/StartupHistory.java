@@ -0,0 +1,142 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.configurations.RunConfiguration;
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.components.StoragePathMacros;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Recent times from start to ready of the run configurations started by multirun, kept in the workspace of project.
+ * Used to start the configurations that are on the longest chain of slow configurations first.
+ *
+ * @author Ruslan Khmelyuk
+ */
+@State(name = "MultirunStartupHistory", storages = @Storage(StoragePathMacros.WORKSPACE_FILE))
+public class StartupHistory implements PersistentStateComponent<StartupHistory.State> {
+
+    private static final int MAX_SAMPLES = 5;
+
+    public static class State {
+        // comma separated recent times in millis, the latest last, by run configuration key
+        public Map<String, String> times = new TreeMap<>();
+    }
+
+    private State state = new State();
+
+    public static StartupHistory getInstance(@NotNull Project project) {
+        return project.getService(StartupHistory.class);
+    }
+
+    @NotNull
+    @Override
+    public synchronized State getState() {
+        return state;
+    }
+
+    @Override
+    public synchronized void loadState(@NotNull State state) {
+        this.state = state;
+    }
+
+    /** Records the time from start to ready of the run configuration, keeping few recent times only. */
+    public synchronized void record(@NotNull RunConfiguration configuration, long millis) {
+        if (millis < 0) return;
+
+        final List<Long> samples = getSamples(RunConfigurationKey.of(configuration).toString());
+        samples.add(millis);
+        while (samples.size() > MAX_SAMPLES) {
+            samples.remove(0);
+        }
+        final StringBuilder value = new StringBuilder();
+        for (Long each : samples) {
+            if (value.length() > 0) {
+                value.append(',');
+            }
+            value.append(each);
+        }
+        state.times.put(RunConfigurationKey.of(configuration).toString(), value.toString());
+    }
+
+    /** Gets the average of recent times from start to ready of the run configuration, or -1 if it was never started. */
+    public synchronized long getEstimate(@NotNull RunConfiguration configuration) {
+        final List<Long> samples = getSamples(RunConfigurationKey.of(configuration).toString());
+        if (samples.isEmpty()) {
+            return -1;
+        }
+        long sum = 0;
+        for (Long each : samples) {
+            sum += each;
+        }
+        return sum / samples.size();
+    }
+
+    private List<Long> getSamples(String key) {
+        final List<Long> result = new ArrayList<>();
+        final String value = state.times.get(key);
+        if (value == null || value.isEmpty()) {
+            return result;
+        }
+        for (String each : value.split(",")) {
+            try {
+                result.add(Long.parseLong(each.trim()));
+            } catch (NumberFormatException ignored) {
+                // skip broken value
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the order to start the nodes of launch plan in, when they can be started at once: the node with the longest
+     * expected time until all its dependents are ready goes first, so the slowest chains start as early as possible.
+     * Nodes never started before are expected to take the average time of the known ones.
+     */
+    public Comparator<LaunchPlan.Node> getCriticalPathOrder(@NotNull LaunchPlan launchPlan) {
+        final Map<LaunchPlan.Node, Long> estimates = new HashMap<>();
+        long known = 0;
+        long knownSum = 0;
+        for (LaunchPlan.Node each : launchPlan.getNodes()) {
+            final long estimate = getEstimate(each.getConfiguration());
+            estimates.put(each, estimate);
+            if (estimate >= 0) {
+                known++;
+                knownSum += estimate;
+            }
+        }
+        final long unknownEstimate = known > 0 ? knownSum / known : 0;
+
+        final long[] pathLengths = new long[launchPlan.size()];
+        final boolean[] computed = new boolean[launchPlan.size()];
+        for (LaunchPlan.Node each : launchPlan.getNodes()) {
+            computePathLength(each, estimates, unknownEstimate, pathLengths, computed);
+        }
+        return Comparator.<LaunchPlan.Node>comparingLong(node -> -pathLengths[node.getIndex()])
+                         .thenComparingInt(node -> -node.getDependents().size())
+                         .thenComparingInt(LaunchPlan.Node::getIndex);
+    }
+
+    private static long computePathLength(LaunchPlan.Node node, Map<LaunchPlan.Node, Long> estimates, long unknownEstimate,
+                                          long[] pathLengths, boolean[] computed) {
+        if (computed[node.getIndex()]) {
+            return pathLengths[node.getIndex()];
+        }
+        long longestDependent = 0;
+        for (LaunchPlan.Node each : node.getDependents()) {
+            longestDependent = Math.max(longestDependent, computePathLength(each, estimates, unknownEstimate, pathLengths, computed));
+        }
+        final long estimate = estimates.get(node);
+        pathLengths[node.getIndex()] = (estimate >= 0 ? estimate : unknownEstimate) + longestDependent;
+        computed[node.getIndex()] = true;
+        return pathLengths[node.getIndex()];
+    }
+}
@@ -0,0 +1,35 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The action to stop all running multirun sessions of the current project.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class StopAllMultirunConfigurationsAction extends AnAction {
+
+    private static final Logger LOG = Logger.getInstance(StopAllMultirunConfigurationsAction.class);
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        final Project project = e.getProject();
+        e.getPresentation().setEnabled(project != null && MultirunSessions.getInstance(project).hasActiveSessions());
+    }
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        final Project project = e.getProject();
+        if (project == null) return;
+
+        int stoppedProcesses = 0;
+        for (MultirunSession session : MultirunSessions.getInstance(project).getSessions()) {
+            stoppedProcesses += session.stop();
+        }
+        LOG.debug("Stopped " + stoppedProcesses + " processes of all multirun sessions");
+    }
+}
@@ -1,119 +1,68 @@
 package com.khmelyuk.multirun;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-
-import com.intellij.execution.KillableProcess;
 import com.intellij.execution.process.ProcessHandler;
+import com.intellij.execution.ui.RunContentDescriptor;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
-import com.intellij.openapi.actionSystem.Presentation;
+import com.intellij.openapi.actionSystem.LangDataKeys;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
 
 /**
- * The action to stop the running multirun configurations.
+ * The action to stop the running multirun session: the one the selected run tab belongs to, or the latest one.
+ * Other sessions keep running; all of them are stopped by {@link StopAllMultirunConfigurationsAction}.
  *
  * @author Ruslan Khmelyuk
  */
 public class StopRunningMultirunConfigurationsAction extends AnAction {
 
-    private final ConcurrentHashMap<Project, List<ProcessHandler>> processes = new ConcurrentHashMap<>();
-    private final AtomicBoolean stopStartingConfigurations = new AtomicBoolean(false);
-    private final AtomicInteger startingCounter = new AtomicInteger(0);
-
-    @Override public void update(AnActionEvent e) {
-        super.update(e);
-        if (e.getProject() == null) return;
+    private static final Logger LOG = Logger.getInstance(StopRunningMultirunConfigurationsAction.class);
 
-        final Presentation presentation = e.getPresentation();
-        final List<ProcessHandler> processes = this.processes.get(e.getProject());
-        presentation.setEnabled(startingCounter.get() > 0 || hasNonTerminatedProcesses(processes));
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        final Project project = e.getProject();
+        e.getPresentation().setEnabled(project != null && MultirunSessions.getInstance(project).hasActiveSessions());
     }
 
-    private boolean hasNonTerminatedProcesses(List<ProcessHandler> processes) {
-        if (processes != null && !processes.isEmpty()) {
-            for(ProcessHandler each : processes) {
-                if (!each.isProcessTerminated()) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        final Project project = e.getProject();
+        if (project == null) return;
 
-    public void actionPerformed(AnActionEvent e) {
-        if (e.getProject() == null) return;
-
-        stopStartingConfigurations.set(true);
-        System.out.println("Asked to stop running multirun configurations.");
-        List<ProcessHandler> processesToStop = processes.get(e.getProject());
-        if (processesToStop == null || processesToStop.isEmpty()) {
-            System.out.println("Nothing to stop");
+        final MultirunSession session = findSession(project, e.getData(LangDataKeys.RUN_CONTENT_DESCRIPTOR));
+        if (session == null) {
+            LOG.debug("No running multirun session to stop");
             return;
         }
-        List<ProcessHandler> stoppedProcesses = new ArrayList<>();
-        for (ProcessHandler process : processesToStop) {
-
-            stop(process);
-            stoppedProcesses.add(process);
-        }
-        processesToStop.removeAll(stoppedProcesses);
-
-        System.out.println("Stopped " + stoppedProcesses.size() + " processes");
-    }
-
-    public void addProcess(Project project, ProcessHandler process) {
-        if (process == null) return;
 
-        if (stopStartingConfigurations.get()) {
-            stop(process);
-            return;
-        }
-        this.processes.putIfAbsent(project, new CopyOnWriteArrayList<>());
-        this.processes.get(project).add(process);
+        final int stoppedProcesses = session.stop();
+        LOG.debug("Stopped " + stoppedProcesses + " processes of multirun session " + session);
     }
 
-    public void removeProcess(final Project project, final ProcessHandler process) {
-        if (process == null) return;
-
-        if (this.processes.containsKey(project)) {
-            this.processes.get(project).remove(process);
+    /** Finds the active session the run tab belongs to, or the latest active session if the tab isn't a part of any. */
+    @Nullable
+    private static MultirunSession findSession(Project project, @Nullable RunContentDescriptor descriptor) {
+        final List<MultirunSession> sessions = MultirunSessions.getInstance(project).getSessions();
+        final ProcessHandler process = descriptor != null ? descriptor.getProcessHandler() : null;
+        if (process instanceof MultirunProcessHandler && sessions.contains(((MultirunProcessHandler) process).getSession())) {
+            return ((MultirunProcessHandler) process).getSession();
         }
-    }
-
-    private void stop(ProcessHandler processHandler) {
-        if (processHandler instanceof KillableProcess && processHandler.isProcessTerminating()) {
-            ((KillableProcess) processHandler).killProcess();
-            return;
+        if (process != null) {
+            for (MultirunSession each : sessions) {
+                if (each.getProcesses().contains(process)) {
+                    return each;
+                }
+            }
         }
-
-        if (processHandler.detachIsDefault()) {
-            processHandler.detachProcess();
-        } else {
-            processHandler.destroyProcess();
+        for (MultirunSession each : MultirunSessions.getInstance(project).getRecentSessions()) {
+            if (sessions.contains(each)) {
+                return each;
+            }
         }
-    }
-
-    public boolean canContinueStartingConfigurations() {
-        return !stopStartingConfigurations.get();
-    }
-
-    public boolean isStopMultirunTriggered() {
-        return stopStartingConfigurations.get();
-    }
-
-    // TODO - move to some component
-
-    public void beginStartingConfigurations() {
-        stopStartingConfigurations.set(false);
-        startingCounter.incrementAndGet();
-    }
-
-    public void doneStaringConfigurations() {
-        startingCounter.decrementAndGet();
+        return null;
     }
 }
@@ -0,0 +1,155 @@
+package com.khmelyuk.multirun;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Strongly connected components of the directed graph, computed with iterative Tarjan's algorithm,
+ * and the reachability between the components.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public final class StronglyConnectedComponents<T> {
+
+    private final Map<T, Integer> components = new HashMap<>();
+    private final List<Integer> componentSizes = new ArrayList<>();
+    // components reachable from the component, including itself; components are numbered in reverse topological order
+    private final List<BitSet> reachable = new ArrayList<>();
+    private final Map<T, Boolean> selfLoops = new HashMap<>();
+
+    private StronglyConnectedComponents() {
+    }
+
+    /**
+     * Computes the components of the graph.
+     *
+     * @param nodes      all the nodes of the graph.
+     * @param successors gets the nodes the node has edges to.
+     */
+    public static <T> StronglyConnectedComponents<T> compute(@NotNull Iterable<T> nodes,
+                                                             @NotNull Function<T, List<T>> successors) {
+        final StronglyConnectedComponents<T> result = new StronglyConnectedComponents<>();
+        final Map<T, Integer> indexes = new HashMap<>();
+        final Map<T, Integer> lowLinks = new HashMap<>();
+        final Map<T, List<T>> edges = new HashMap<>();
+        final List<T> stack = new ArrayList<>();
+        final Map<T, Boolean> onStack = new HashMap<>();
+
+        for (T root : nodes) {
+            if (indexes.containsKey(root)) {
+                continue;
+            }
+
+            // each frame is the node and the index of its next successor to visit
+            final List<T> callStack = new ArrayList<>();
+            final List<Integer> nextSuccessor = new ArrayList<>();
+            callStack.add(root);
+            nextSuccessor.add(0);
+            visit(root, indexes, lowLinks, stack, onStack);
+
+            while (!callStack.isEmpty()) {
+                final int top = callStack.size() - 1;
+                final T node = callStack.get(top);
+                final List<T> nodeEdges = edges.computeIfAbsent(node, successors);
+                final int next = nextSuccessor.get(top);
+
+                if (next < nodeEdges.size()) {
+                    nextSuccessor.set(top, next + 1);
+                    final T successor = nodeEdges.get(next);
+                    if (successor.equals(node)) {
+                        result.selfLoops.put(node, true);
+                    }
+                    if (!indexes.containsKey(successor)) {
+                        visit(successor, indexes, lowLinks, stack, onStack);
+                        callStack.add(successor);
+                        nextSuccessor.add(0);
+                    } else if (onStack.getOrDefault(successor, false)) {
+                        lowLinks.put(node, Math.min(lowLinks.get(node), indexes.get(successor)));
+                    }
+                    continue;
+                }
+
+                // all successors are visited
+                callStack.remove(top);
+                nextSuccessor.remove(top);
+                if (top > 0) {
+                    final T parent = callStack.get(top - 1);
+                    lowLinks.put(parent, Math.min(lowLinks.get(parent), lowLinks.get(node)));
+                }
+                if (lowLinks.get(node).equals(indexes.get(node))) {
+                    result.addComponent(node, stack, onStack, edges);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static <T> void visit(T node, Map<T, Integer> indexes, Map<T, Integer> lowLinks, List<T> stack, Map<T, Boolean> onStack) {
+        final int index = indexes.size();
+        indexes.put(node, index);
+        lowLinks.put(node, index);
+        stack.add(node);
+        onStack.put(node, true);
+    }
+
+    private void addComponent(T root, List<T> stack, Map<T, Boolean> onStack, Map<T, List<T>> edges) {
+        final int component = componentSizes.size();
+        final List<T> members = new ArrayList<>();
+        T member;
+        do {
+            member = stack.remove(stack.size() - 1);
+            onStack.put(member, false);
+            components.put(member, component);
+            members.add(member);
+        } while (!member.equals(root));
+
+        // successor components are already numbered, as Tarjan's algorithm finds components in reverse topological order
+        final BitSet componentReachable = new BitSet();
+        componentReachable.set(component);
+        for (T each : members) {
+            for (T successor : edges.getOrDefault(each, Collections.emptyList())) {
+                final Integer successorComponent = components.get(successor);
+                if (successorComponent != null && successorComponent != component) {
+                    componentReachable.or(reachable.get(successorComponent));
+                }
+            }
+        }
+        componentSizes.add(members.size());
+        reachable.add(componentReachable);
+    }
+
+    /** Checks whether there is a path from one node to another. Each node is considered reachable from itself. */
+    public boolean reaches(T from, T to) {
+        final Integer fromComponent = components.get(from);
+        final Integer toComponent = components.get(to);
+        if (fromComponent == null || toComponent == null) {
+            return from.equals(to);
+        }
+        return reachable.get(fromComponent).get(toComponent);
+    }
+
+    /** Checks whether both nodes are in the same cycle. */
+    public boolean inSameCycle(T first, T second) {
+        final Integer firstComponent = components.get(first);
+        if (firstComponent == null || !firstComponent.equals(components.get(second))) {
+            return false;
+        }
+        return componentSizes.get(firstComponent) > 1 || selfLoops.getOrDefault(first, false);
+    }
+
+    /** Checks whether the node is a part of any cycle. */
+    public boolean isInCycle(T node) {
+        return inSameCycle(node, node);
+    }
+
+    public int getComponentsCount() {
+        return componentSizes.size();
+    }
+}
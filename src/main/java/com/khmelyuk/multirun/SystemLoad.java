@@ -0,0 +1,247 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.process.BaseProcessHandler;
+import com.intellij.execution.process.ProcessHandler;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Samples the load of the machine, and the CPU used by the started processes with their child processes.
+ * Reads {@code /proc} on Linux, and falls back to the management beans of JVM on other systems.
+ * CPU usage is measured between two samples, so the first sample only remembers the counters.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class SystemLoad {
+
+    private static final Path PROC = Paths.get("/proc");
+    private static final boolean PROC_AVAILABLE = Files.isReadable(PROC.resolve("stat"));
+    // clock ticks per second used by /proc/<pid>/stat, which is 100 on all common Linux systems
+    private static final double CLOCK_TICKS = 100;
+
+    /** The load of the machine between two samples. */
+    public static class Sample {
+        private final double cpu;
+        private final double availableMemory;
+        private final double processesCpu;
+
+        Sample(double cpu, double availableMemory, double processesCpu) {
+            this.cpu = cpu;
+            this.availableMemory = availableMemory;
+            this.processesCpu = processesCpu;
+        }
+
+        /** Gets the busy fraction of all CPUs, from 0 to 1, or -1 if it's unknown. */
+        public double getCpu() {
+            return cpu;
+        }
+
+        /** Gets the fraction of physical memory available for new processes, from 0 to 1, or -1 if it's unknown. */
+        public double getAvailableMemory() {
+            return availableMemory;
+        }
+
+        /** Gets the number of CPUs busy with the sampled processes and their child processes. */
+        public double getProcessesCpu() {
+            return processesCpu;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("CPU %.0f%%, memory available %.0f%%, started configurations use %.1f CPUs",
+                                 cpu * 100, availableMemory * 100, processesCpu);
+        }
+    }
+
+    private final Supplier<List<ProcessHandler>> processes;
+    private long lastTime = 0;
+    private long lastCpuTotal = 0;
+    private long lastCpuIdle = 0;
+    // CPU time in nanos per process id, at the last sample
+    private Map<Long, Long> lastProcessCpu = new HashMap<Long, Long>();
+
+    /**
+     * @param processes gets the processes which CPU usage is sampled.
+     */
+    public SystemLoad(@NotNull Supplier<List<ProcessHandler>> processes) {
+        this.processes = processes;
+    }
+
+    /** Samples the load since the previous sample. */
+    @NotNull
+    public synchronized Sample sample() {
+        final long time = System.nanoTime();
+        final double elapsed = lastTime != 0 ? time - lastTime : 0;
+        lastTime = time;
+
+        final double cpu = PROC_AVAILABLE ? sampleProcCpu() : sampleJvmCpu();
+        final double availableMemory = PROC_AVAILABLE ? readProcAvailableMemory() : readJvmAvailableMemory();
+
+        final Map<Long, Long> processCpu = new HashMap<Long, Long>();
+        long busyNanos = 0;
+        for (ProcessHandler each : processes.get()) {
+            for (long pid : getProcessTree(each)) {
+                final long cpuNanos = readProcessCpu(pid);
+                if (cpuNanos < 0) {
+                    continue;
+                }
+                processCpu.put(pid, cpuNanos);
+                final Long lastCpuNanos = lastProcessCpu.get(pid);
+                if (lastCpuNanos != null) {
+                    busyNanos += Math.max(0, cpuNanos - lastCpuNanos);
+                }
+            }
+        }
+        lastProcessCpu = processCpu;
+
+        return new Sample(cpu, availableMemory, elapsed > 0 ? busyNanos / elapsed : 0);
+    }
+
+    /** Reads the busy fraction of CPUs since the last sample from the first line of {@code /proc/stat}. */
+    private double sampleProcCpu() {
+        try {
+            final String line = Files.readAllLines(PROC.resolve("stat"), StandardCharsets.US_ASCII).get(0);
+            final String[] fields = line.trim().split("\\s+");
+            long total = 0;
+            for (int i = 1; i < fields.length; i++) {
+                total += Long.parseLong(fields[i]);
+            }
+            // idle and iowait
+            final long idle = Long.parseLong(fields[4]) + (fields.length > 5 ? Long.parseLong(fields[5]) : 0);
+
+            final long totalDelta = total - lastCpuTotal;
+            final long idleDelta = idle - lastCpuIdle;
+            final boolean first = lastCpuTotal == 0;
+            lastCpuTotal = total;
+            lastCpuIdle = idle;
+            return first || totalDelta <= 0 ? -1 : 1 - (double) idleDelta / totalDelta;
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static double sampleJvmCpu() {
+        final OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+            final double load = ((com.sun.management.OperatingSystemMXBean) bean).getSystemCpuLoad();
+            return load >= 0 ? load : -1;
+        }
+        // the load average is the best guess when CPU usage is not available
+        final double loadAverage = bean.getSystemLoadAverage();
+        return loadAverage >= 0 ? Math.min(1, loadAverage / bean.getAvailableProcessors()) : -1;
+    }
+
+    /** Reads the available memory from {@code /proc/meminfo}, which counts reclaimable caches as available too. */
+    private static double readProcAvailableMemory() {
+        try {
+            long total = -1;
+            long available = -1;
+            for (String line : Files.readAllLines(PROC.resolve("meminfo"), StandardCharsets.US_ASCII)) {
+                if (line.startsWith("MemTotal:")) {
+                    total = parseMemInfoValue(line);
+                } else if (line.startsWith("MemAvailable:")) {
+                    available = parseMemInfoValue(line);
+                }
+            }
+            return total > 0 && available >= 0 ? (double) available / total : -1;
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static long parseMemInfoValue(String line) {
+        return Long.parseLong(line.substring(line.indexOf(':') + 1).trim().split("\\s+")[0]);
+    }
+
+    private static double readJvmAvailableMemory() {
+        final OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+            final com.sun.management.OperatingSystemMXBean osBean = (com.sun.management.OperatingSystemMXBean) bean;
+            final long total = osBean.getTotalPhysicalMemorySize();
+            return total > 0 ? (double) osBean.getFreePhysicalMemorySize() / total : -1;
+        }
+        return -1;
+    }
+
+    /** Gets the id of process and ids of all its child processes, or empty list if process is not running. */
+    @NotNull
+    static List<Long> getProcessTree(@NotNull ProcessHandler handler) {
+        final List<Long> result = new ArrayList<Long>();
+        if (!(handler instanceof BaseProcessHandler) || handler.isProcessTerminated()) {
+            return result;
+        }
+        final Process process = ((BaseProcessHandler<?>) handler).getProcess();
+        try {
+            result.add(process.pid());
+            process.descendants().forEach(each -> result.add(each.pid()));
+        } catch (UnsupportedOperationException ignored) {
+            // the process is not a native process
+        }
+        return result;
+    }
+
+    /** Reads the CPU time of the process in nanos, from {@code /proc/<pid>/stat} if possible, or -1 if it has exited. */
+    static long readProcessCpu(long pid) {
+        if (PROC_AVAILABLE) {
+            final String[] fields = readProcStat(pid);
+            if (fields == null) {
+                return -1;
+            }
+            try {
+                // utime and stime, in clock ticks
+                final long ticks = Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+                return (long) (ticks / CLOCK_TICKS * 1_000_000_000L);
+            } catch (RuntimeException e) {
+                return -1;
+            }
+        }
+        final Optional<Duration> cpu = ProcessHandle.of(pid).flatMap(each -> each.info().totalCpuDuration());
+        return cpu.map(Duration::toNanos).orElse(-1L);
+    }
+
+    /** Reads the resident memory of the process in bytes from {@code /proc/<pid>/status}, or -1 if it's unknown. */
+    static long readProcessRss(long pid) {
+        if (!PROC_AVAILABLE) {
+            return -1;
+        }
+        try {
+            for (String line : Files.readAllLines(PROC.resolve(String.valueOf(pid)).resolve("status"), StandardCharsets.US_ASCII)) {
+                if (line.startsWith("VmRSS:")) {
+                    return parseMemInfoValue(line) * 1024;
+                }
+            }
+            // kernel threads and zombies have no memory
+            return 0;
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Reads the fields of {@code /proc/<pid>/stat} that follow the process name, so the field {@code n} of proc(5)
+     * is at index {@code n - 3}. Returns null if the process has exited.
+     */
+    static String[] readProcStat(long pid) {
+        try {
+            final String stat = new String(Files.readAllBytes(PROC.resolve(String.valueOf(pid)).resolve("stat")), StandardCharsets.US_ASCII);
+            // the process name is in parentheses, and can contain spaces
+            return stat.substring(stat.lastIndexOf(')') + 2).trim().split("\\s+");
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+}
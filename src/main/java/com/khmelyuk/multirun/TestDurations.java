@@ -0,0 +1,63 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.configurations.RunConfiguration;
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.components.StoragePathMacros;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Recent durations of test classes run by the sharded test configurations, kept in the workspace of project.
+ * Used to split test classes into shards that take about the same time.
+ *
+ * @author Ruslan Khmelyuk
+ */
+@State(name = "MultirunTestDurations", storages = @Storage(StoragePathMacros.WORKSPACE_FILE))
+public class TestDurations implements PersistentStateComponent<TestDurations.State> {
+
+    public static class State {
+        // duration in millis by run configuration key and test class name, separated with '#'
+        public Map<String, Long> durations = new TreeMap<>();
+    }
+
+    private State state = new State();
+
+    public static TestDurations getInstance(@NotNull Project project) {
+        return project.getService(TestDurations.class);
+    }
+
+    @NotNull
+    @Override
+    public synchronized State getState() {
+        return state;
+    }
+
+    @Override
+    public synchronized void loadState(@NotNull State state) {
+        this.state = state;
+    }
+
+    /** Records the duration of test class, averaged with the previous one, so single slow run doesn't move it to other shard. */
+    public synchronized void record(@NotNull RunConfiguration configuration, @NotNull String testClass, long millis) {
+        if (millis < 0) return;
+
+        final String key = getKey(configuration, testClass);
+        final Long previous = state.durations.get(key);
+        state.durations.put(key, previous != null ? (previous + millis) / 2 : millis);
+    }
+
+    /** Gets the recent duration of test class in millis, or -1 if it was never run by the configuration. */
+    public synchronized long getEstimate(@NotNull RunConfiguration configuration, @NotNull String testClass) {
+        final Long duration = state.durations.get(getKey(configuration, testClass));
+        return duration != null ? duration : -1;
+    }
+
+    private static String getKey(RunConfiguration configuration, String testClass) {
+        return RunConfigurationKey.of(configuration) + "#" + testClass;
+    }
+}
@@ -0,0 +1,50 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.configurations.RunConfiguration;
+import com.intellij.openapi.extensions.ExtensionPointName;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Splits the test run configuration of some test framework into shards, each running a subset of its test classes.
+ * Implementations are registered by the optional dependencies on test framework plugins.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public interface TestSharder {
+
+    ExtensionPointName<TestSharder> EP_NAME = ExtensionPointName.create("com.khmelyuk.multirun.testSharder");
+
+    /** Whether the run configuration runs tests this sharder can split. */
+    boolean canShard(@NotNull RunConfiguration configuration);
+
+    /**
+     * Finds the fully qualified names of test classes run by the configuration, or the names of single test methods
+     * in the form the configuration specifies them. Called in read action, in smart mode.
+     */
+    @NotNull
+    List<String> findTestClasses(@NotNull RunConfiguration configuration);
+
+    /** Gets the name of test class of the test found by {@link #findTestClasses}, which durations are recorded by. */
+    @NotNull
+    default String getTestClass(@NotNull String test) {
+        return test;
+    }
+
+    /** Creates the copy of run configuration that runs only the specified test classes. */
+    @NotNull
+    RunConfiguration createShard(@NotNull RunConfiguration configuration, @NotNull List<String> testClasses, @NotNull String name);
+
+    /** Finds the sharder for the run configuration, or null if it can't be split into shards. */
+    @Nullable
+    static TestSharder find(@NotNull RunConfiguration configuration) {
+        for (TestSharder each : EP_NAME.getExtensionList()) {
+            if (each.canShard(configuration)) {
+                return each;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,252 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.configurations.RunConfiguration;
+import com.intellij.execution.testframework.sm.runner.SMTestProxy;
+import com.intellij.execution.testframework.sm.runner.ui.SMTRunnerConsoleView;
+import com.intellij.execution.ui.RunContentDescriptor;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * The test run configuration split into shards, each running a subset of its test classes at the same time as others.
+ * Test classes are split once, when the first shard is started: by their recent durations if any of them are known,
+ * so shards take about the same time, or by the hash of class name otherwise. The split is kept for the reruns.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class TestShards {
+
+    private static final String SUITE_PROTOCOL = "java:suite://";
+
+    /** The results of tests run by single shard. */
+    public static class Result {
+        private final int exitCode;
+        private final int passed;
+        private final int failed;
+        private final int ignored;
+
+        Result(int exitCode, int passed, int failed, int ignored) {
+            this.exitCode = exitCode;
+            this.passed = passed;
+            this.failed = failed;
+            this.ignored = ignored;
+        }
+
+        public int getExitCode() {
+            return exitCode;
+        }
+
+        public int getPassed() {
+            return passed;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public int getIgnored() {
+            return ignored;
+        }
+    }
+
+    private final RunConfiguration configuration;
+    private final int count;
+    // number of shards in the launch plan, which is less than count when only some of them are started again
+    private int started = 0;
+    // test classes of each shard, or empty list if test classes are not known; guarded by this
+    private List<List<String>> partition;
+    private final Map<Integer, Result> results = new TreeMap<Integer, Result>();
+
+    TestShards(@NotNull RunConfiguration configuration, int count) {
+        this.configuration = configuration;
+        this.count = count;
+    }
+
+    /** Gets the copy of these shards to start some of them again, with the same test classes. */
+    synchronized TestShards copy() {
+        final TestShards result = new TestShards(configuration, count);
+        result.partition = partition;
+        return result;
+    }
+
+    /** Called by launch plan for each node of these shards. */
+    synchronized void addShard() {
+        started++;
+    }
+
+    @NotNull
+    public RunConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the configuration to start for the shard, or null if the shard has no test classes to run.
+     * If test classes are not known, the first shard runs the whole configuration. Can't be called on EDT.
+     *
+     * @param base the copy of configuration to create the shard from, like the one without before launch tasks.
+     */
+    @Nullable
+    public RunConfiguration getShardConfiguration(int shard, @NotNull RunConfiguration base, @NotNull Project project) {
+        final TestSharder sharder = TestSharder.find(configuration);
+        final List<List<String>> partition = getPartition(sharder, project);
+        if (partition.isEmpty()) {
+            return shard == 0 ? base : null;
+        }
+        final List<String> testClasses = partition.get(shard);
+        if (testClasses.isEmpty() || sharder == null) {
+            return null;
+        }
+        return sharder.createShard(base, testClasses, configuration.getName() + " [" + (shard + 1) + "/" + count + "]");
+    }
+
+    private synchronized List<List<String>> getPartition(@Nullable TestSharder sharder, Project project) {
+        if (partition == null) {
+            final List<String> testClasses = sharder != null
+                    ? ReadAction.nonBlocking(() -> sharder.findTestClasses(configuration)).inSmartMode(project).executeSynchronously()
+                    : Collections.<String>emptyList();
+            final TestDurations durations = TestDurations.getInstance(project);
+            partition = split(testClasses, count, each -> durations.getEstimate(configuration, sharder != null ? sharder.getTestClass(each) : each));
+        }
+        return partition;
+    }
+
+    /**
+     * Splits test classes into the shards. If durations of some classes are known, each class, the longest first,
+     * goes to the shard with the least total duration, and classes never run before are expected to take the average
+     * time of the known ones. Otherwise each class goes to the shard chosen by the hash of its name, so the split
+     * doesn't change when classes are added or removed. Returns empty list if there are no test classes.
+     */
+    static List<List<String>> split(List<String> testClasses, int count, ToLongFunction<String> durations) {
+        if (testClasses.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<List<String>> result = new ArrayList<List<String>>();
+        for (int i = 0; i < count; i++) {
+            result.add(new ArrayList<String>());
+        }
+
+        final Map<String, Long> estimates = new TreeMap<String, Long>();
+        long known = 0;
+        long knownSum = 0;
+        for (String each : testClasses) {
+            final long estimate = durations.applyAsLong(each);
+            estimates.put(each, estimate);
+            if (estimate >= 0) {
+                known++;
+                knownSum += estimate;
+            }
+        }
+        if (known == 0) {
+            for (String each : estimates.keySet()) {
+                result.get(Math.floorMod(each.hashCode(), count)).add(each);
+            }
+            return result;
+        }
+
+        final long unknownEstimate = knownSum / known;
+        final List<String> longestFirst = new ArrayList<String>(estimates.keySet());
+        longestFirst.sort(Comparator.<String>comparingLong(each -> -(estimates.get(each) >= 0 ? estimates.get(each) : unknownEstimate))
+                                    .thenComparing(Comparator.naturalOrder()));
+        final long[] totals = new long[count];
+        for (String each : longestFirst) {
+            int shortest = 0;
+            for (int i = 1; i < count; i++) {
+                if (totals[i] < totals[shortest]) {
+                    shortest = i;
+                }
+            }
+            result.get(shortest).add(each);
+            totals[shortest] += estimates.get(each) >= 0 ? estimates.get(each) : unknownEstimate;
+        }
+        for (List<String> each : result) {
+            Collections.sort(each);
+        }
+        return result;
+    }
+
+    /**
+     * Reads the results of tests from the console of finished shard, and records the durations of its test classes.
+     * Should be called on EDT, as the test tree is updated there.
+     */
+    @NotNull
+    Result readResults(@Nullable RunContentDescriptor descriptor, int exitCode, @NotNull TestDurations durations) {
+        if (descriptor == null || !(descriptor.getExecutionConsole() instanceof SMTRunnerConsoleView)) {
+            return new Result(exitCode, 0, 0, 0);
+        }
+        final SMTestProxy root = ((SMTRunnerConsoleView) descriptor.getExecutionConsole()).getResultsViewer().getTestsRootNode();
+        int passed = 0;
+        int failed = 0;
+        int ignored = 0;
+        for (SMTestProxy each : root.getAllTests()) {
+            if (each.isSuite()) {
+                final String url = each.getLocationUrl();
+                final Long duration = each.getDuration();
+                if (url != null && url.startsWith(SUITE_PROTOCOL) && duration != null && !each.isInProgress()) {
+                    durations.record(configuration, url.substring(SUITE_PROTOCOL.length()), duration);
+                }
+            } else if (each.isIgnored()) {
+                ignored++;
+            } else if (each.isDefect()) {
+                failed++;
+            } else {
+                passed++;
+            }
+        }
+        return new Result(exitCode, passed, failed, ignored);
+    }
+
+    /** Remembers the result of finished shard, and returns true if it was the last shard to finish. */
+    synchronized boolean shardFinished(int shard, @NotNull Result result) {
+        results.put(shard, result);
+        return results.size() == started;
+    }
+
+    /** Gets the worst exit code of finished shards, the same way as the exit code of multirun session is chosen. */
+    public synchronized int getExitCode() {
+        int result = 0;
+        for (Result each : results.values()) {
+            if (Math.abs(each.exitCode) > Math.abs(result)) {
+                result = each.exitCode;
+            }
+        }
+        return result;
+    }
+
+    /** Gets the summary of tests run by all finished shards. */
+    public synchronized String getSummary() {
+        int passed = 0;
+        int failed = 0;
+        int ignored = 0;
+        final List<String> failedShards = new ArrayList<String>();
+        for (Map.Entry<Integer, Result> entry : results.entrySet()) {
+            passed += entry.getValue().passed;
+            failed += entry.getValue().failed;
+            ignored += entry.getValue().ignored;
+            if (entry.getValue().exitCode != 0) {
+                failedShards.add(String.valueOf(entry.getKey() + 1));
+            }
+        }
+        final StringBuilder result = new StringBuilder();
+        result.append("Tests of '").append(configuration.getName()).append("' finished in ").append(results.size())
+              .append(results.size() == 1 ? " shard" : " shards").append(" with exit code ").append(getExitCode())
+              .append(": ").append(passed).append(" passed, ").append(failed).append(" failed, ").append(ignored).append(" ignored");
+        if (!failedShards.isEmpty()) {
+            result.append("; failed shards: ").append(String.join(", ", failedShards));
+        }
+        return result.toString();
+    }
+}
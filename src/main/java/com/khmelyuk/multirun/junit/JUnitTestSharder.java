@@ -0,0 +1,118 @@
+package com.khmelyuk.multirun.junit;
+
+import com.intellij.execution.configurations.RunConfiguration;
+import com.intellij.execution.junit.JUnitConfiguration;
+import com.intellij.execution.junit.JUnitUtil;
+import com.intellij.execution.testframework.SourceScope;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.JavaDirectoryService;
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiDirectory;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiPackage;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.GlobalSearchScopesCore;
+import com.khmelyuk.multirun.TestSharder;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits JUnit run configurations that run all tests in package, directory or by pattern. Each shard runs its test classes
+ * as the pattern configuration, with the same search scope, module and VM options as the original one.
+ * Patterns with wildcards are not split, as the classes they match are found by JUnit only when tests are run;
+ * patterns of single test methods are kept as they are, with the method.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class JUnitTestSharder implements TestSharder {
+
+    @Override
+    public boolean canShard(@NotNull RunConfiguration configuration) {
+        if (!(configuration instanceof JUnitConfiguration)) {
+            return false;
+        }
+        final JUnitConfiguration.Data data = ((JUnitConfiguration) configuration).getPersistentData();
+        if (JUnitConfiguration.TEST_PATTERN.equals(data.TEST_OBJECT)) {
+            for (String each : data.getPatterns()) {
+                if (each.contains("*")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return JUnitConfiguration.TEST_PACKAGE.equals(data.TEST_OBJECT)
+                || JUnitConfiguration.TEST_DIRECTORY.equals(data.TEST_OBJECT);
+    }
+
+    @NotNull
+    @Override
+    public List<String> findTestClasses(@NotNull RunConfiguration configuration) {
+        final JUnitConfiguration junitConfiguration = (JUnitConfiguration) configuration;
+        final JUnitConfiguration.Data data = junitConfiguration.getPersistentData();
+        final Set<String> result = new LinkedHashSet<String>();
+        if (JUnitConfiguration.TEST_PATTERN.equals(data.TEST_OBJECT)) {
+            // each pattern is the class name, optionally followed by the method name, and is run as it is by the shard
+            for (String each : data.getPatterns()) {
+                result.add(each.trim());
+            }
+            return new ArrayList<String>(result);
+        }
+
+        final Project project = configuration.getProject();
+        final GlobalSearchScope scope;
+        final PsiPackage psiPackage;
+        if (JUnitConfiguration.TEST_DIRECTORY.equals(data.TEST_OBJECT)) {
+            final VirtualFile directory = LocalFileSystem.getInstance().findFileByPath(data.getDirName());
+            final PsiDirectory psiDirectory = directory != null ? PsiManager.getInstance(project).findDirectory(directory) : null;
+            if (psiDirectory == null) {
+                return new ArrayList<String>();
+            }
+            scope = GlobalSearchScopesCore.directoryScope(psiDirectory, true);
+            psiPackage = JavaDirectoryService.getInstance().getPackage(psiDirectory);
+        } else {
+            final SourceScope sourceScope = data.getScope().getSourceScope(junitConfiguration);
+            scope = sourceScope != null ? sourceScope.getGlobalSearchScope() : GlobalSearchScope.projectScope(project);
+            psiPackage = JavaPsiFacade.getInstance(project).findPackage(data.getPackageName());
+        }
+        if (psiPackage != null) {
+            collectTestClasses(psiPackage, scope, result);
+        }
+        return new ArrayList<String>(result);
+    }
+
+    @NotNull
+    @Override
+    public String getTestClass(@NotNull String test) {
+        return test.contains(",") ? test.substring(0, test.indexOf(',')) : test;
+    }
+
+    private static void collectTestClasses(PsiPackage psiPackage, GlobalSearchScope scope, Set<String> result) {
+        for (PsiClass each : psiPackage.getClasses(scope)) {
+            if (each.getQualifiedName() != null && JUnitUtil.isTestClass(each)) {
+                result.add(each.getQualifiedName());
+            }
+        }
+        for (PsiPackage each : psiPackage.getSubPackages(scope)) {
+            collectTestClasses(each, scope, result);
+        }
+    }
+
+    @NotNull
+    @Override
+    public RunConfiguration createShard(@NotNull RunConfiguration configuration, @NotNull List<String> testClasses,
+                                        @NotNull String name) {
+        final JUnitConfiguration shard = (JUnitConfiguration) configuration.clone();
+        shard.setName(name);
+        final JUnitConfiguration.Data data = shard.getPersistentData();
+        data.TEST_OBJECT = JUnitConfiguration.TEST_PATTERN;
+        data.setPatterns(new LinkedHashSet<String>(testClasses));
+        return shard;
+    }
+}
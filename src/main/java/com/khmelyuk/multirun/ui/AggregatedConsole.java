@@ -0,0 +1,167 @@
+package com.khmelyuk.multirun.ui;
+
+import com.intellij.execution.filters.TextConsoleBuilderFactory;
+import com.intellij.execution.ui.ConsoleView;
+import com.intellij.execution.ui.ConsoleViewContentType;
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.actionSystem.ActionGroup;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.ToggleAction;
+import com.intellij.openapi.editor.markup.TextAttributes;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.ui.JBColor;
+import com.khmelyuk.multirun.AggregatedOutput;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Console of multirun session that shows the output of all its processes, each line prefixed with its source
+ * in the colour of source. Lines of each source can be hidden, and the lines that didn't fit into the buffer
+ * can be opened from the spill file. The console is printed again from the buffer once as many lines as the buffer holds
+ * were spilled, so it never keeps more than twice the lines of buffer.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class AggregatedConsole {
+
+    private static final Color[] SOURCE_COLORS = {
+            new JBColor(new Color(0x0033B3), new Color(0x6897BB)),
+            new JBColor(new Color(0x067D17), new Color(0x6A8759)),
+            new JBColor(new Color(0x871094), new Color(0x9876AA)),
+            new JBColor(new Color(0x9E5B00), new Color(0xCC7832)),
+            new JBColor(new Color(0x00627A), new Color(0x299999)),
+            new JBColor(new Color(0x8C6C00), new Color(0xBBB529)),
+    };
+
+    private final Project project;
+    private final AggregatedOutput output;
+    private final ConsoleView console;
+    private final Set<AggregatedOutput.Source> hiddenSources = ConcurrentHashMap.newKeySet();
+    private final Map<AggregatedOutput.Source, ConsoleViewContentType> sourceTypes = new ConcurrentHashMap<>();
+    // the number of spilled lines when the console was printed again last time; guarded by this
+    private long spilledAtReprint = 0;
+
+    public AggregatedConsole(@NotNull Project project, @NotNull AggregatedOutput output) {
+        this.project = project;
+        this.output = output;
+        this.console = TextConsoleBuilderFactory.getInstance().createBuilder(project).getConsole();
+
+        output.addListener(this::lineAdded);
+        Disposer.register(console, output::dispose);
+    }
+
+    public ConsoleView getConsole() {
+        return console;
+    }
+
+    /** Gets the actions for the toolbar of multirun tab. */
+    public AnAction[] getActions() {
+        return new AnAction[]{new SourcesFilterGroup(), new OpenSpilledOutputAction()};
+    }
+
+    private synchronized void lineAdded(AggregatedOutput.Line line) {
+        if (output.getSpilledLines() - spilledAtReprint >= output.getCapacity()) {
+            // the older lines are dropped from the console as well, it has the line just added already
+            reprint();
+        } else if (!hiddenSources.contains(line.getSource())) {
+            print(line);
+        }
+    }
+
+    private void print(AggregatedOutput.Line line) {
+        console.print("[" + line.getSource().getName() + "] ", getSourceType(line.getSource()));
+        console.print(line.getText(), line.isError()
+                ? ConsoleViewContentType.ERROR_OUTPUT
+                : line.isSystem() ? ConsoleViewContentType.SYSTEM_OUTPUT : ConsoleViewContentType.NORMAL_OUTPUT);
+    }
+
+    private ConsoleViewContentType getSourceType(AggregatedOutput.Source source) {
+        return sourceTypes.computeIfAbsent(source, key -> {
+            final TextAttributes attributes = new TextAttributes();
+            attributes.setForegroundColor(SOURCE_COLORS[key.getIndex() % SOURCE_COLORS.length]);
+            attributes.setFontType(Font.BOLD);
+            return new ConsoleViewContentType("MULTIRUN_SOURCE_" + key.getIndex(), attributes);
+        });
+    }
+
+    /** Prints the lines in buffer again, after the set of shown sources has changed or the older lines were spilled. */
+    private synchronized void reprint() {
+        spilledAtReprint = output.getSpilledLines();
+        console.clear();
+        for (AggregatedOutput.Line each : output.getLines()) {
+            if (!hiddenSources.contains(each.getSource())) {
+                print(each);
+            }
+        }
+    }
+
+    /** Lets to choose the sources which lines are shown. */
+    private class SourcesFilterGroup extends ActionGroup {
+        SourcesFilterGroup() {
+            super("Show Output Of", "Choose the configurations which output is shown", AllIcons.General.Filter);
+            setPopup(true);
+        }
+
+        @NotNull
+        @Override
+        public AnAction[] getChildren(@Nullable AnActionEvent e) {
+            final List<AnAction> result = new ArrayList<>();
+            for (AggregatedOutput.Source each : output.getSources()) {
+                result.add(new ToggleAction(each.getName()) {
+                    @Override
+                    public boolean isSelected(@NotNull AnActionEvent e) {
+                        return !hiddenSources.contains(each);
+                    }
+
+                    @Override
+                    public void setSelected(@NotNull AnActionEvent e, boolean state) {
+                        if (state) {
+                            hiddenSources.remove(each);
+                        } else {
+                            hiddenSources.add(each);
+                        }
+                        reprint();
+                    }
+                });
+            }
+            return result.toArray(AnAction.EMPTY_ARRAY);
+        }
+    }
+
+    private class OpenSpilledOutputAction extends AnAction {
+        OpenSpilledOutputAction() {
+            super("Open Older Output", "Open the output that didn't fit into the console buffer", AllIcons.Actions.MenuOpen);
+        }
+
+        @Override
+        public void update(@NotNull AnActionEvent e) {
+            e.getPresentation().setEnabled(output.getSpilledLines() > 0);
+        }
+
+        @Override
+        public void actionPerformed(@NotNull AnActionEvent e) {
+            final File file = output.getSpillFile();
+            final VirtualFile virtualFile = file != null ? LocalFileSystem.getInstance().refreshAndFindFileByIoFile(file) : null;
+            if (virtualFile == null) {
+                Messages.showErrorDialog(project, "The file with older output is not found.", "Open Older Output");
+                return;
+            }
+            virtualFile.refresh(false, false);
+            FileEditorManager.getInstance(project).openFile(virtualFile, true);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.khmelyuk.multirun.ui;
+
+import com.intellij.execution.configurations.RunConfiguration;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.ComboBox;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.ui.ValidationInfo;
+import com.intellij.ui.components.JBCheckBox;
+import com.intellij.ui.components.JBTextField;
+import com.intellij.util.ui.FormBuilder;
+import com.khmelyuk.multirun.LaunchStage;
+import com.khmelyuk.multirun.MultirunRunConfiguration;
+import com.khmelyuk.multirun.ReadinessProbe;
+import com.khmelyuk.multirun.RestartPolicy;
+import com.khmelyuk.multirun.TestSharder;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+
+/**
+ * Dialog to edit settings of single run configuration inside of multirun configuration.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class EntrySettingsDialog extends DialogWrapper {
+
+    private final MultirunRunConfiguration configuration;
+    private final RunConfiguration entry;
+
+    private final ComboBox<ReadinessProbe.Type> readinessType = new ComboBox<>(ReadinessProbe.Type.values());
+    private final JBTextField readinessValue = new JBTextField();
+    private final JBTextField readinessTimeout = new JBTextField();
+    private final JBCheckBox restartEnabled = new JBCheckBox("Restart on crash");
+    private final JBTextField restartInitialDelay = new JBTextField();
+    private final JBTextField restartMaxDelay = new JBTextField();
+    private final JBTextField restartMaxRestarts = new JBTextField();
+    private final JBTextField restartWindow = new JBTextField();
+    private final ComboBox<LaunchStage> stage;
+    private final JBTextField shards = new JBTextField();
+    private final boolean canShard;
+
+    public EntrySettingsDialog(Project project, MultirunRunConfiguration configuration, RunConfiguration entry) {
+        super(project);
+        this.configuration = configuration;
+        this.entry = entry;
+
+        setTitle("Settings of '" + entry.getName() + "'");
+
+        final ReadinessProbe readinessProbe = configuration.getReadinessProbe(entry);
+        readinessType.setSelectedItem(readinessProbe.getType());
+        readinessValue.setText(readinessProbe.getValue());
+        readinessValue.getEmptyText().setText("regex, port, http://localhost:8080/health or file path");
+        readinessTimeout.setText(String.format("%.1f", readinessProbe.isNone() ? ReadinessProbe.DEFAULT_TIMEOUT : readinessProbe.getTimeout()));
+        readinessType.addActionListener(e -> updateControls());
+
+        final RestartPolicy restartPolicy = configuration.getRestartPolicy(entry);
+        restartEnabled.setSelected(restartPolicy.isEnabled());
+        restartInitialDelay.setText(String.format("%.1f", restartPolicy.getInitialDelay()));
+        restartMaxDelay.setText(String.format("%.1f", restartPolicy.getMaxDelay()));
+        restartMaxRestarts.setText(String.valueOf(restartPolicy.getMaxRestarts()));
+        restartWindow.setText(String.format("%.1f", restartPolicy.getWindow()));
+        restartEnabled.addActionListener(e -> updateControls());
+        updateControls();
+
+        stage = new ComboBox<>(configuration.getStages().toArray(new LaunchStage[0]));
+        stage.setSelectedItem(configuration.getStage(entry));
+
+        canShard = TestSharder.find(entry) != null;
+        shards.setText(String.valueOf(configuration.getShards(entry)));
+
+        init();
+    }
+
+    private void updateControls() {
+        final boolean hasProbe = readinessType.getSelectedItem() != ReadinessProbe.Type.NONE;
+        readinessValue.setEnabled(hasProbe);
+        readinessTimeout.setEnabled(hasProbe);
+
+        final boolean restart = restartEnabled.isSelected();
+        restartInitialDelay.setEnabled(restart);
+        restartMaxDelay.setEnabled(restart);
+        restartMaxRestarts.setEnabled(restart);
+        restartWindow.setEnabled(restart);
+    }
+
+    @Nullable
+    @Override
+    protected JComponent createCenterPanel() {
+        final FormBuilder builder = FormBuilder.createFormBuilder();
+        if (stage.getItemCount() > 0) {
+            builder.addLabeledComponent("Stage:", stage)
+                   .addTooltip("The stage starts when all configurations of the previous stage are ready.")
+                   .addSeparator();
+        }
+        if (canShard) {
+            builder.addLabeledComponent("Shards:", shards)
+                   .addTooltip("Test classes are split into this number of configurations, which run at the same time.")
+                   .addSeparator();
+        }
+        return builder.addLabeledComponent("Ready when:", readinessType)
+                          .addLabeledComponent("Condition:", readinessValue)
+                          .addLabeledComponent("Timeout (s):", readinessTimeout)
+                          .addTooltip("Configurations that depend on this one are started when it becomes ready or the timeout expires.")
+                          .addSeparator()
+                          .addComponent(restartEnabled)
+                          .addLabeledComponent("Initial delay (s):", restartInitialDelay)
+                          .addLabeledComponent("Max delay (s):", restartMaxDelay)
+                          .addLabeledComponent("Max restarts:", restartMaxRestarts)
+                          .addLabeledComponent("Within (s):", restartWindow)
+                          .addTooltip("Delay doubles after each crash. Restarts stop when there are more crashes within the window.")
+                          .getPanel();
+    }
+
+    @Nullable
+    @Override
+    protected ValidationInfo doValidate() {
+        final ReadinessProbe readinessProbe = getReadinessProbe();
+        if (readinessProbe == null) {
+            return new ValidationInfo("Timeout should be a positive number", readinessTimeout);
+        }
+        final String problem = readinessProbe.validate();
+        if (problem != null) {
+            return new ValidationInfo(problem, readinessValue);
+        }
+
+        if (canShard && getShards() < 1) {
+            return new ValidationInfo("Number of shards should be a positive number", shards);
+        }
+
+        final RestartPolicy restartPolicy = getRestartPolicy();
+        if (restartPolicy == null) {
+            return new ValidationInfo("Restart settings should be numbers", restartInitialDelay);
+        }
+        final String restartProblem = restartPolicy.validate();
+        if (restartProblem != null) {
+            return new ValidationInfo(restartProblem, restartInitialDelay);
+        }
+        return null;
+    }
+
+    @Nullable
+    private ReadinessProbe getReadinessProbe() {
+        final ReadinessProbe.Type type = (ReadinessProbe.Type) readinessType.getSelectedItem();
+        if (type == null || type == ReadinessProbe.Type.NONE) {
+            return ReadinessProbe.NONE;
+        }
+        try {
+            final double timeout = Double.parseDouble(readinessTimeout.getText().trim());
+            return timeout > 0 ? new ReadinessProbe(type, readinessValue.getText(), timeout) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private RestartPolicy getRestartPolicy() {
+        if (!restartEnabled.isSelected()) {
+            return RestartPolicy.NONE;
+        }
+        try {
+            return new RestartPolicy(true,
+                                     Double.parseDouble(restartInitialDelay.getText().trim()),
+                                     Double.parseDouble(restartMaxDelay.getText().trim()),
+                                     Integer.parseInt(restartMaxRestarts.getText().trim()),
+                                     Double.parseDouble(restartWindow.getText().trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private int getShards() {
+        try {
+            return Integer.parseInt(shards.getText().trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    protected void doOKAction() {
+        configuration.setReadinessProbe(entry, getReadinessProbe());
+        configuration.setRestartPolicy(entry, getRestartPolicy());
+        if (stage.getItemCount() > 0) {
+            configuration.setStage(entry, (LaunchStage) stage.getSelectedItem());
+        }
+        if (canShard) {
+            configuration.setShards(entry, getShards());
+        }
+        super.doOKAction();
+    }
+}
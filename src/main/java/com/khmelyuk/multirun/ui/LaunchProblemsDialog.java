@@ -0,0 +1,128 @@
+package com.khmelyuk.multirun.ui;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.ui.CollectionListModel;
+import com.intellij.ui.ColoredListCellRenderer;
+import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.SimpleTextAttributes;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBList;
+import com.intellij.util.ui.JBUI;
+import com.khmelyuk.multirun.LaunchValidator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Shows all configurations of multirun that can't be started, and lets to edit them,
+ * to start the rest of configurations or to cancel the start.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class LaunchProblemsDialog extends DialogWrapper {
+
+    private final String multirunName;
+    private final int launchSize;
+    private final Function<LaunchValidator.Problem, LaunchValidator.Problem> editor;
+    private final CollectionListModel<LaunchValidator.Problem> problems;
+    private final JBList<LaunchValidator.Problem> list;
+    private final JBLabel title = new JBLabel();
+    private final EditAction editAction = new EditAction();
+
+    /**
+     * @param launchSize the number of configurations in the launch.
+     * @param editor     edits the configuration with problem, and returns the problem that's still there or null if it's fixed.
+     */
+    public LaunchProblemsDialog(Project project, String multirunName, List<LaunchValidator.Problem> problems, int launchSize,
+                                Function<LaunchValidator.Problem, LaunchValidator.Problem> editor) {
+        super(project);
+        this.multirunName = multirunName;
+        this.launchSize = launchSize;
+        this.editor = editor;
+        this.problems = new CollectionListModel<>(problems);
+        this.list = new JBList<>(this.problems);
+
+        setTitle("Cannot Start '" + multirunName + "'");
+        setOKButtonText("Launch Valid Subset");
+        init();
+        updateState();
+    }
+
+    /** Gets the problems that were not fixed by user. */
+    public List<LaunchValidator.Problem> getProblems() {
+        return problems.getItems();
+    }
+
+    @Nullable
+    @Override
+    protected JComponent createCenterPanel() {
+        list.setCellRenderer(new ColoredListCellRenderer<LaunchValidator.Problem>() {
+            @Override
+            protected void customizeCellRenderer(@NotNull JList<? extends LaunchValidator.Problem> list, LaunchValidator.Problem value,
+                                                 int index, boolean selected, boolean hasFocus) {
+                setIcon(AllIcons.General.Error);
+                append(value.getNode().getName(), SimpleTextAttributes.REGULAR_BOLD_ATTRIBUTES);
+                append("  " + value.getMessage(), SimpleTextAttributes.REGULAR_ATTRIBUTES);
+            }
+        });
+        list.addListSelectionListener(e -> updateState());
+        list.setSelectedIndex(0);
+
+        final JPanel panel = new JPanel(new BorderLayout(0, JBUI.scale(8)));
+        panel.add(title, BorderLayout.NORTH);
+        panel.add(ScrollPaneFactory.createScrollPane(list), BorderLayout.CENTER);
+        panel.add(new JBLabel("Configurations that depend on the skipped ones are started anyway."), BorderLayout.SOUTH);
+        panel.setPreferredSize(JBUI.size(500, 200));
+        return panel;
+    }
+
+    @NotNull
+    @Override
+    protected Action[] createLeftSideActions() {
+        return new Action[]{editAction};
+    }
+
+    private void updateState() {
+        final int count = problems.getSize();
+        title.setText(count == 1
+                              ? "1 configuration of '" + multirunName + "' cannot be started:"
+                              : count + " configurations of '" + multirunName + "' cannot be started:");
+        getOKAction().setEnabled(count < launchSize);
+        editAction.setEnabled(list.getSelectedValue() != null);
+    }
+
+    /** Opens the settings of selected configuration, and removes its problem from the list once it's fixed. */
+    private class EditAction extends DialogWrapperAction {
+        EditAction() {
+            super("Edit...");
+        }
+
+        @Override
+        protected void doAction(ActionEvent e) {
+            final int index = list.getSelectedIndex();
+            if (index < 0) {
+                return;
+            }
+            final LaunchValidator.Problem problem = editor.apply(problems.getElementAt(index));
+            if (problem != null) {
+                problems.setElementAt(problem, index);
+            } else {
+                problems.remove(index);
+            }
+            if (problems.isEmpty()) {
+                // all configurations can be started now
+                close(OK_EXIT_CODE);
+                return;
+            }
+            list.setSelectedIndex(Math.min(index, problems.getSize() - 1));
+            updateState();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.khmelyuk.multirun.ui;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.actionSystem.ActionManager;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.DefaultActionGroup;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.ComboBox;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.SimpleListCellRenderer;
+import com.intellij.ui.table.JBTable;
+import com.intellij.util.Alarm;
+import com.khmelyuk.multirun.LaunchTimeline;
+import com.khmelyuk.multirun.MultirunSession;
+import com.khmelyuk.multirun.MultirunSessions;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Shows the launch timeline of recent multirun sessions: when each configuration was resolved, validated,
+ * started, became ready and terminated.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class LaunchTimelinePanel extends JPanel implements Disposable {
+
+    private static final int REFRESH_DELAY_MILLIS = 300;
+
+    private final Project project;
+    private final ComboBox<MultirunSession> sessions = new ComboBox<>();
+    private final TimelineTableModel tableModel = new TimelineTableModel();
+    private final Alarm refreshAlarm = new Alarm(Alarm.ThreadToUse.SWING_THREAD, this);
+
+    public LaunchTimelinePanel(Project project) {
+        super(new BorderLayout());
+        this.project = project;
+
+        sessions.setRenderer(SimpleListCellRenderer.create("", session -> session.getName() + " at "
+                + new SimpleDateFormat("HH:mm:ss").format(new Date(session.getTimeline().getStartTime()))));
+        sessions.addActionListener(e -> refreshTable());
+
+        final DefaultActionGroup actions = new DefaultActionGroup();
+        actions.add(new AnAction("Export as JSON", "Export launch timeline of selected session as JSON", AllIcons.ToolbarDecorator.Export) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+                exportJson();
+            }
+
+            @Override
+            public void update(@NotNull AnActionEvent e) {
+                e.getPresentation().setEnabled(sessions.getSelectedItem() != null);
+            }
+        });
+        final JComponent toolbar = ActionManager.getInstance().createActionToolbar("MultirunTimeline", actions, true).getComponent();
+
+        final JPanel header = new JPanel(new BorderLayout());
+        header.add(sessions, BorderLayout.CENTER);
+        header.add(toolbar, BorderLayout.EAST);
+        add(header, BorderLayout.NORTH);
+        add(ScrollPaneFactory.createScrollPane(new JBTable(tableModel)), BorderLayout.CENTER);
+
+        MultirunSessions.getInstance(project).addChangeListener(this::scheduleRefresh, this);
+        refresh();
+    }
+
+    private void scheduleRefresh() {
+        if (!refreshAlarm.isDisposed()) {
+            refreshAlarm.cancelAllRequests();
+            refreshAlarm.addRequest(this::refresh, REFRESH_DELAY_MILLIS);
+        }
+    }
+
+    private void refresh() {
+        final List<MultirunSession> recentSessions = MultirunSessions.getInstance(project).getRecentSessions();
+        final Object selected = sessions.getSelectedItem();
+        final boolean latestSelected = selected == null || sessions.getItemCount() == 0 || selected == sessions.getItemAt(0);
+
+        sessions.setModel(new DefaultComboBoxModel<>(recentSessions.toArray(new MultirunSession[0])));
+        if (!recentSessions.isEmpty()) {
+            // follow the new session, unless user chose an older one
+            sessions.setSelectedItem(latestSelected || !recentSessions.contains(selected) ? recentSessions.get(0) : selected);
+        }
+        refreshTable();
+    }
+
+    private void refreshTable() {
+        final MultirunSession session = (MultirunSession) sessions.getSelectedItem();
+        tableModel.setTimeline(session != null ? session.getTimeline() : null);
+    }
+
+    private void exportJson() {
+        final MultirunSession session = (MultirunSession) sessions.getSelectedItem();
+        if (session == null) {
+            return;
+        }
+
+        final FileSaverDescriptor descriptor = new FileSaverDescriptor("Export Launch Timeline", "Save launch timeline as JSON", "json");
+        final VirtualFileWrapper file = FileChooserFactory.getInstance()
+                                                          .createSaveFileDialog(descriptor, project)
+                                                          .save(null, session.getName() + ".json");
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.write(file.getFile().toPath(), session.getTimeline().toJson().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Messages.showErrorDialog(project, "Failed to export launch timeline: " + e.getMessage(), "Export Launch Timeline");
+        }
+    }
+
+    @Override
+    public void dispose() {
+    }
+
+    private static class TimelineTableModel extends AbstractTableModel {
+
+        private static final LaunchTimeline.Event[] EVENTS = LaunchTimeline.Event.values();
+
+        private LaunchTimeline timeline;
+        private List<LaunchTimeline.Entry> entries = new ArrayList<>();
+
+        void setTimeline(LaunchTimeline timeline) {
+            this.timeline = timeline;
+            this.entries = timeline != null ? timeline.getEntries() : new ArrayList<>();
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return entries.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            // name, events and exit code
+            return EVENTS.length + 2;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            if (column == 0) {
+                return "Configuration";
+            }
+            if (column <= EVENTS.length) {
+                return EVENTS[column - 1].toString();
+            }
+            return "Exit Code";
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            final LaunchTimeline.Entry entry = entries.get(row);
+            if (column == 0) {
+                return entry.getName();
+            }
+            if (column <= EVENTS.length) {
+                final long time = entry.getTime(EVENTS[column - 1]);
+                return time != 0 ? "+" + (time - timeline.getStartTime()) + " ms" : "";
+            }
+            return Objects.toString(entry.getExitCode(), "");
+        }
+    }
+}
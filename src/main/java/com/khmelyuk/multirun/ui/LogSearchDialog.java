@@ -0,0 +1,145 @@
+package com.khmelyuk.multirun.ui;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.ComboBox;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.ui.ValidationInfo;
+import com.intellij.ui.CollectionListModel;
+import com.intellij.ui.ColoredListCellRenderer;
+import com.intellij.ui.DoubleClickListener;
+import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.SimpleTextAttributes;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBList;
+import com.intellij.ui.components.JBTextField;
+import com.intellij.util.ui.FormBuilder;
+import com.intellij.util.ui.JBUI;
+import com.khmelyuk.multirun.ProcessLog;
+import com.khmelyuk.multirun.SessionLogs;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Searches the logs of all processes of multirun session with regular expression,
+ * and opens the log of process at the found line.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class LogSearchDialog extends DialogWrapper {
+
+    private static final int MAX_MATCHES = 1000;
+
+    private final Project project;
+    private final SessionLogs logs;
+    private final JBTextField pattern = new JBTextField();
+    private final ComboBox<ProcessLog> processes;
+    private final CollectionListModel<SessionLogs.Match> matchesModel = new CollectionListModel<>();
+    private final JBList<SessionLogs.Match> matches = new JBList<>(matchesModel);
+    private final JBLabel status = new JBLabel();
+
+    public LogSearchDialog(Project project, SessionLogs logs) {
+        super(project, false, IdeModalityType.MODELESS);
+        this.project = project;
+        this.logs = logs;
+        this.processes = new ComboBox<>(logs.getLogs().toArray(new ProcessLog[0]));
+
+        setTitle("Logs of '" + logs.getName() + "'");
+        setOKButtonText("Search");
+        setCancelButtonText("Close");
+        pattern.getEmptyText().setText("regular expression");
+        matches.setCellRenderer(new ColoredListCellRenderer<SessionLogs.Match>() {
+            @Override
+            protected void customizeCellRenderer(@NotNull JList<? extends SessionLogs.Match> list, SessionLogs.Match value,
+                                                 int index, boolean selected, boolean hasFocus) {
+                append(value.getLog().getName(), SimpleTextAttributes.REGULAR_BOLD_ATTRIBUTES);
+                append(":" + (value.getLine() + 1) + "  ", SimpleTextAttributes.GRAYED_ATTRIBUTES);
+                append(value.getText(), SimpleTextAttributes.REGULAR_ATTRIBUTES);
+            }
+        });
+        new DoubleClickListener() {
+            @Override
+            protected boolean onDoubleClick(@NotNull MouseEvent event) {
+                final SessionLogs.Match match = matches.getSelectedValue();
+                if (match != null) {
+                    new LogViewerDialog(project, match.getLog(), match.getLine()).show();
+                }
+                return match != null;
+            }
+        }.installOn(matches);
+        init();
+    }
+
+    @Nullable
+    @Override
+    protected JComponent createCenterPanel() {
+        final JButton open = new JButton("Open in Viewer");
+        open.addActionListener(e -> {
+            final ProcessLog log = (ProcessLog) processes.getSelectedItem();
+            if (log != null) {
+                new LogViewerDialog(project, log, 0).show();
+            }
+        });
+        final JPanel processPanel = new JPanel(new BorderLayout(JBUI.scale(4), 0));
+        processPanel.add(processes, BorderLayout.CENTER);
+        processPanel.add(open, BorderLayout.EAST);
+
+        final JPanel panel = FormBuilder.createFormBuilder()
+                                        .addLabeledComponent("Process:", processPanel)
+                                        .addLabeledComponent("Find:", pattern)
+                                        .addComponentFillVertically(ScrollPaneFactory.createScrollPane(matches), 0)
+                                        .addComponent(status)
+                                        .getPanel();
+        panel.setPreferredSize(JBUI.size(800, 500));
+        return panel;
+    }
+
+    @Nullable
+    @Override
+    public JComponent getPreferredFocusedComponent() {
+        return pattern;
+    }
+
+    @Nullable
+    @Override
+    protected ValidationInfo doValidate() {
+        try {
+            Pattern.compile(pattern.getText());
+            return null;
+        } catch (PatternSyntaxException e) {
+            return new ValidationInfo(e.getDescription(), pattern);
+        }
+    }
+
+    /** Searches the logs in background, and keeps the dialog open to show the matches. */
+    @Override
+    protected void doOKAction() {
+        final Pattern regex = Pattern.compile(pattern.getText());
+        status.setText("Searching...");
+        new Task.Backgroundable(project, "Searching logs of '" + logs.getName() + "'", true) {
+            private List<SessionLogs.Match> found = Collections.emptyList();
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                found = logs.search(regex, MAX_MATCHES, indicator);
+            }
+
+            @Override
+            public void onFinished() {
+                matchesModel.replaceAll(found);
+                status.setText(found.size() >= MAX_MATCHES
+                                       ? "First " + MAX_MATCHES + " matches"
+                                       : found.size() + " matches");
+            }
+        }.queue();
+    }
+}
@@ -0,0 +1,220 @@
+package com.khmelyuk.multirun.ui;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBList;
+import com.intellij.ui.components.JBTextField;
+import com.intellij.util.ui.JBUI;
+import com.khmelyuk.multirun.ProcessLog;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shows the log of single process. Lines are read from the file block by block in background, only when they are shown,
+ * so the log of any size can be viewed. The rows are as wide as the longest line read so far.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class LogViewerDialog extends DialogWrapper {
+
+    private static final Logger LOG = Logger.getInstance(LogViewerDialog.class);
+    private static final int REFRESH_DELAY_MILLIS = 1000;
+    private static final int CACHED_BLOCKS = 32;
+
+    private final Project project;
+    private final ProcessLog log;
+    private final LogListModel model;
+    private final JBList<String> lines;
+    private final JBTextField time = new JBTextField(8);
+    private final Timer refreshTimer;
+    // the longest line read so far, which sets the width of rows
+    private String widestLine = "";
+
+    public LogViewerDialog(Project project, ProcessLog log, int line) {
+        super(project, false, IdeModalityType.MODELESS);
+        this.project = project;
+        this.log = log;
+        this.model = new LogListModel();
+        this.lines = new JBList<>(model);
+        this.refreshTimer = new Timer(REFRESH_DELAY_MILLIS, e -> model.refresh());
+
+        setTitle("Log of '" + log.getName() + "'");
+        setOKButtonText("Close");
+        // the fixed size keeps the list from reading all lines to find the width of rows
+        lines.setFixedCellHeight(JBUI.scale(18));
+        lines.setFixedCellWidth(JBUI.scale(100));
+        lines.setFont(new Font(Font.MONOSPACED, Font.PLAIN, lines.getFont().getSize()));
+        time.getEmptyText().setText("HH:mm:ss");
+        time.addActionListener(e -> goToTime());
+        init();
+
+        refreshTimer.start();
+        SwingUtilities.invokeLater(() -> goToLine(line));
+    }
+
+    @Nullable
+    @Override
+    protected JComponent createCenterPanel() {
+        final JPanel timePanel = new JPanel(new FlowLayout(FlowLayout.LEFT, JBUI.scale(4), 0));
+        timePanel.add(new JBLabel("Go to time:"));
+        timePanel.add(time);
+        timePanel.add(new JBLabel(log.getFile().getPath()));
+
+        final JPanel panel = new JPanel(new BorderLayout(0, JBUI.scale(8)));
+        panel.add(timePanel, BorderLayout.NORTH);
+        panel.add(ScrollPaneFactory.createScrollPane(lines), BorderLayout.CENTER);
+        panel.setPreferredSize(JBUI.size(900, 600));
+        return panel;
+    }
+
+    @NotNull
+    @Override
+    protected Action[] createActions() {
+        return new Action[]{getOKAction()};
+    }
+
+    private void goToLine(int line) {
+        if (line >= 0 && line < model.getSize()) {
+            lines.setSelectedIndex(line);
+            lines.ensureIndexIsVisible(line);
+        }
+    }
+
+    /** Goes to the first line captured at the time of today. */
+    private void goToTime() {
+        final Calendar parsed = Calendar.getInstance();
+        try {
+            parsed.setTime(new SimpleDateFormat("HH:mm:ss").parse(time.getText().trim()));
+        } catch (ParseException e) {
+            Messages.showErrorDialog(project, "Time should be in HH:mm:ss format.", "Go to Time");
+            return;
+        }
+        final Calendar target = Calendar.getInstance();
+        target.set(Calendar.HOUR_OF_DAY, parsed.get(Calendar.HOUR_OF_DAY));
+        target.set(Calendar.MINUTE, parsed.get(Calendar.MINUTE));
+        target.set(Calendar.SECOND, parsed.get(Calendar.SECOND));
+        target.set(Calendar.MILLISECOND, 0);
+        goToLine(Math.min(log.findLine(target.getTimeInMillis()), model.getSize() - 1));
+    }
+
+    /** Makes the rows wide enough for the longest of the lines just read. */
+    private void updateWidth(List<String> blockLines) {
+        String widest = widestLine;
+        for (String each : blockLines) {
+            if (each.length() > widest.length()) {
+                widest = each;
+            }
+        }
+        if (widest != widestLine) {
+            widestLine = widest;
+            lines.setPrototypeCellValue(widest);
+            lines.setFixedCellHeight(JBUI.scale(18));
+        }
+    }
+
+    @Override
+    protected void dispose() {
+        refreshTimer.stop();
+        super.dispose();
+    }
+
+    /**
+     * Lines of the log, read by blocks in background when they are shown, with few recent blocks cached.
+     * The lines of block that's not read yet are empty until it's read. Accessed on EDT only.
+     */
+    private class LogListModel extends AbstractListModel<String> {
+        private final Map<Integer, List<String>> blocks = new LinkedHashMap<Integer, List<String>>(CACHED_BLOCKS, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<String>> eldest) {
+                return size() > CACHED_BLOCKS;
+            }
+        };
+        private final Set<Integer> loading = new HashSet<Integer>();
+        private int size;
+
+        LogListModel() {
+            this.size = log.getLineCount();
+        }
+
+        @Override
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public String getElementAt(int index) {
+            final int block = index / ProcessLog.BLOCK_SIZE;
+            final List<String> lines = blocks.get(block);
+            if (lines == null) {
+                load(block);
+                return "";
+            }
+            final int line = index % ProcessLog.BLOCK_SIZE;
+            return line < lines.size() ? lines.get(line) : "";
+        }
+
+        private void load(final int block) {
+            if (!loading.add(block)) {
+                return;
+            }
+            ApplicationManager.getApplication().executeOnPooledThread(() -> {
+                List<String> lines;
+                try {
+                    lines = log.readBlock(block);
+                } catch (IOException e) {
+                    LOG.warn("Failed to read " + log.getFile(), e);
+                    lines = Collections.emptyList();
+                }
+                final List<String> blockLines = lines;
+                ApplicationManager.getApplication().invokeLater(() -> loaded(block, blockLines), ModalityState.any());
+            });
+        }
+
+        private void loaded(int block, List<String> lines) {
+            loading.remove(block);
+            if (isDisposed()) {
+                return;
+            }
+            blocks.put(block, lines);
+            updateWidth(lines);
+            final int first = block * ProcessLog.BLOCK_SIZE;
+            final int last = Math.min(first + ProcessLog.BLOCK_SIZE, size) - 1;
+            if (last >= first) {
+                fireContentsChanged(this, first, last);
+            }
+        }
+
+        /** Shows the lines added to the log since the last refresh. */
+        void refresh() {
+            final int newSize = log.getLineCount();
+            if (newSize > size) {
+                final int oldSize = size;
+                size = newSize;
+                if (oldSize % ProcessLog.BLOCK_SIZE != 0) {
+                    // the last block had less lines, so it's read again
+                    blocks.remove(oldSize / ProcessLog.BLOCK_SIZE);
+                }
+                fireIntervalAdded(this, oldSize, newSize - 1);
+            }
+        }
+    }
+}
@@ -2,13 +2,19 @@ package com.khmelyuk.multirun.ui;
 
 import com.intellij.execution.RunManager;
 import com.intellij.execution.configurations.RunConfiguration;
+import com.intellij.icons.AllIcons;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.options.SettingsEditor;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.popup.JBPopupFactory;
 import com.intellij.ui.*;
 import com.intellij.ui.components.JBList;
+import com.khmelyuk.multirun.LaunchStage;
 import com.khmelyuk.multirun.MultirunRunConfiguration;
+import com.khmelyuk.multirun.MultirunSession;
+import com.khmelyuk.multirun.MultirunStopper;
+import com.khmelyuk.multirun.ReadinessProbe;
+import com.khmelyuk.multirun.RestartPolicy;
 import com.khmelyuk.multirun.RunConfigurationHelper;
 import org.jetbrains.annotations.NotNull;
 
@@ -18,6 +24,8 @@ import javax.swing.event.ListDataListener;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * For to edit multirun run configuration.
@@ -27,6 +35,8 @@ import java.util.Arrays;
 @SuppressWarnings("unchecked")
 public class MultirunRunConfigurationEditor extends SettingsEditor<MultirunRunConfiguration> {
 
+    private static final String AUTO = "auto";
+
     private Project project;
     private JPanel myMainPanel;
     private JBList configurations;
@@ -36,8 +46,24 @@ public class MultirunRunConfigurationEditor extends SettingsEditor<MultirunRunCo
     private JCheckBox startOneByOne;
     private JCheckBox markFailedProcess;
     private JCheckBox hideSuccessProcess;
+    private JCheckBox shareBeforeRunTasks;
+    private JCheckBox skipRunning;
+    private JCheckBox aggregateOutput;
+    private JCheckBox captureLogs;
+    private JCheckBox optimizeOrder;
+    private JCheckBox adaptiveLaunch;
+    private JTextField loadThreshold;
+    private JTextField maxLoadWait;
+    private JCheckBox monitorResources;
+    private JTextField monitorInterval;
+    private JTextField cpuWarning;
+    private JTextField memoryWarning;
     private JCheckBox configurationsListChanged;
     private JTextField delayTime;
+    private JTextField maxConcurrentStarting;
+    private JComboBox stopOrder;
+    private JTextField stopTimeout;
+    private JComboBox failurePolicy;
     private MultirunRunConfiguration configuration;
 
     public MultirunRunConfigurationEditor(final Project project) {
@@ -78,7 +104,7 @@ public class MultirunRunConfigurationEditor extends SettingsEditor<MultirunRunCo
                 fireEditorStateChanged();
             }
         });
-        configurations.setCellRenderer(new RunConfigurationListCellRenderer());
+        configurations.setCellRenderer(new RunConfigurationListCellRenderer(this.configuration));
 
         if (this.configuration != null) {
             delayTime.setText(String.format("%.1f", this.configuration.getDelayTime()));
@@ -87,6 +113,24 @@ public class MultirunRunConfigurationEditor extends SettingsEditor<MultirunRunCo
             startOneByOne.setSelected(this.configuration.isStartOneByOne());
             markFailedProcess.setSelected(this.configuration.isMarkFailedProcess());
             hideSuccessProcess.setSelected(this.configuration.isHideSuccessProcess());
+            shareBeforeRunTasks.setSelected(this.configuration.isShareBeforeRunTasks());
+            skipRunning.setSelected(this.configuration.isSkipRunning());
+            aggregateOutput.setSelected(this.configuration.isAggregateOutput());
+            captureLogs.setSelected(this.configuration.isCaptureLogs());
+            optimizeOrder.setSelected(this.configuration.isOptimizeOrder());
+            adaptiveLaunch.setSelected(this.configuration.isAdaptiveLaunch());
+            loadThreshold.setText(String.valueOf(this.configuration.getLoadThreshold()));
+            maxLoadWait.setText(String.format("%.1f", this.configuration.getMaxLoadWait()));
+            monitorResources.setSelected(this.configuration.isMonitorResources());
+            monitorInterval.setText(String.format("%.1f", this.configuration.getMonitorInterval()));
+            cpuWarning.setText(String.valueOf(this.configuration.getCpuWarning()));
+            memoryWarning.setText(String.valueOf(this.configuration.getMemoryWarning()));
+            final int maxConcurrentStartingValue = this.configuration.getMaxConcurrentStarting();
+            maxConcurrentStarting.setText(maxConcurrentStartingValue == MultirunRunConfiguration.MAX_CONCURRENT_STARTING_AUTO
+                                                  ? AUTO : String.valueOf(maxConcurrentStartingValue));
+            stopOrder.setSelectedItem(this.configuration.getStopOrder());
+            failurePolicy.setSelectedItem(this.configuration.getFailurePolicy());
+            stopTimeout.setText(String.format("%.1f", this.configuration.getStopTimeout()));
         }
     }
 
@@ -101,6 +145,48 @@ public class MultirunRunConfigurationEditor extends SettingsEditor<MultirunRunCo
         multirunRunConfiguration.setStartOneByOne(startOneByOne.isSelected());
         multirunRunConfiguration.setMarkFailedProcess(markFailedProcess.isSelected());
         multirunRunConfiguration.setHideSuccessProcess(hideSuccessProcess.isSelected());
+        multirunRunConfiguration.setShareBeforeRunTasks(shareBeforeRunTasks.isSelected());
+        multirunRunConfiguration.setSkipRunning(skipRunning.isSelected());
+        multirunRunConfiguration.setAggregateOutput(aggregateOutput.isSelected());
+        multirunRunConfiguration.setCaptureLogs(captureLogs.isSelected());
+        multirunRunConfiguration.setOptimizeOrder(optimizeOrder.isSelected());
+        multirunRunConfiguration.setAdaptiveLaunch(adaptiveLaunch.isSelected());
+        if (loadThreshold.getText() != null && !loadThreshold.getText().trim().isEmpty()) {
+            try {
+                multirunRunConfiguration.setLoadThreshold(Integer.parseInt(loadThreshold.getText().trim()));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        if (maxLoadWait.getText() != null && !maxLoadWait.getText().trim().isEmpty()) {
+            try {
+                multirunRunConfiguration.setMaxLoadWait(Double.parseDouble(maxLoadWait.getText().trim()));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        multirunRunConfiguration.setMonitorResources(monitorResources.isSelected());
+        if (monitorInterval.getText() != null && !monitorInterval.getText().trim().isEmpty()) {
+            try {
+                multirunRunConfiguration.setMonitorInterval(Double.parseDouble(monitorInterval.getText().trim()));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        if (cpuWarning.getText() != null && !cpuWarning.getText().trim().isEmpty()) {
+            try {
+                multirunRunConfiguration.setCpuWarning(Integer.parseInt(cpuWarning.getText().trim()));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        if (memoryWarning.getText() != null && !memoryWarning.getText().trim().isEmpty()) {
+            try {
+                multirunRunConfiguration.setMemoryWarning(Integer.parseInt(memoryWarning.getText().trim()));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
         double delayTimeSeconds = 0;
         if (delayTime.getText() != null && !delayTime.getText().isEmpty()) {
             try {
@@ -111,6 +197,31 @@ public class MultirunRunConfigurationEditor extends SettingsEditor<MultirunRunCo
         }
         multirunRunConfiguration.setDelayTime(delayTimeSeconds);
 
+        int maxConcurrentStartingValue = 0;
+        final String maxConcurrentStartingText = maxConcurrentStarting.getText() != null ? maxConcurrentStarting.getText().trim() : "";
+        if (AUTO.equalsIgnoreCase(maxConcurrentStartingText)) {
+            maxConcurrentStartingValue = MultirunRunConfiguration.MAX_CONCURRENT_STARTING_AUTO;
+        } else if (!maxConcurrentStartingText.isEmpty()) {
+            try {
+                maxConcurrentStartingValue = Math.max(0, Integer.parseInt(maxConcurrentStartingText));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        multirunRunConfiguration.setMaxConcurrentStarting(maxConcurrentStartingValue);
+
+        multirunRunConfiguration.setStopOrder((MultirunStopper.StopOrder) stopOrder.getSelectedItem());
+        multirunRunConfiguration.setFailurePolicy((MultirunSession.FailurePolicy) failurePolicy.getSelectedItem());
+        double stopTimeoutSeconds = 0;
+        if (stopTimeout.getText() != null && !stopTimeout.getText().isEmpty()) {
+            try {
+                stopTimeoutSeconds = Math.max(0, Double.parseDouble(stopTimeout.getText()));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        multirunRunConfiguration.setStopTimeout(stopTimeoutSeconds);
+
         RunConfiguration[] buffer = new RunConfiguration[configurations.getModel().getSize()];
         ((DefaultListModel) configurations.getModel()).copyInto(buffer);
         MultirunRunConfigurationEditor.this.configuration.setRunConfigurations(Arrays.asList(buffer));
@@ -135,7 +246,7 @@ public class MultirunRunConfigurationEditor extends SettingsEditor<MultirunRunCo
             @Override
             public void run(AnActionButton button) {
                 final JBList list = new JBList(getConfigurationsToAdd());
-                list.setCellRenderer(new RunConfigurationListCellRenderer());
+                list.setCellRenderer(new RunConfigurationListCellRenderer(null));
                 JBPopupFactory.getInstance().createListPopupBuilder(list)
                               .setItemChoosenCallback(new Runnable() {
                                   @Override
@@ -161,6 +272,76 @@ public class MultirunRunConfigurationEditor extends SettingsEditor<MultirunRunCo
                 return !getConfigurationsToAdd().isEmpty();
             }
         });
+        myDecorator.addExtraAction(new AnActionButton("Edit Dependencies", "Choose configurations that should be started before selected one", AllIcons.Actions.Edit) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+                final RunConfiguration selected = (RunConfiguration) configurations.getSelectedValue();
+                if (selected == null || configuration == null) {
+                    return;
+                }
+
+                final java.util.List<RunConfiguration> candidates = getDependencyCandidates(selected);
+                final java.util.List<RunConfiguration> dependencies = configuration.getDependencies(selected);
+                final JBList list = new JBList(candidates);
+                list.setCellRenderer(new RunConfigurationListCellRenderer(null));
+                for (RunConfiguration each : dependencies) {
+                    final int index = candidates.indexOf(each);
+                    if (index != -1) {
+                        list.addSelectionInterval(index, index);
+                    }
+                }
+                JBPopupFactory.getInstance().createListPopupBuilder(list)
+                              .setTitle("Start '" + selected.getName() + "' After")
+                              .setItemChoosenCallback(new Runnable() {
+                                  @Override
+                                  public void run() {
+                                      configuration.setDependencies(selected, list.getSelectedValuesList());
+                                      configurations.repaint();
+                                      markConfigurationsChanged();
+                                  }
+                              })
+                              .createPopup()
+                              .showUnderneathOf(getContextComponent());
+            }
+
+            @Override
+            public boolean isEnabled() {
+                return configurations.getSelectedValue() != null && configurations.getModel().getSize() > 1;
+            }
+        });
+        myDecorator.addExtraAction(new AnActionButton("Entry Settings", "Configure when selected configuration is ready", AllIcons.General.Settings) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+                final RunConfiguration selected = (RunConfiguration) configurations.getSelectedValue();
+                if (selected == null || configuration == null) {
+                    return;
+                }
+                if (new EntrySettingsDialog(project, configuration, selected).showAndGet()) {
+                    configurations.repaint();
+                    markConfigurationsChanged();
+                }
+            }
+
+            @Override
+            public boolean isEnabled() {
+                return configurations.getSelectedValue() != null;
+            }
+        });
+
+        myDecorator.addExtraAction(new AnActionButton("Edit Stages", "Split configurations into stages that are started one after another", AllIcons.Nodes.Folder) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+                if (configuration != null && new StagesDialog(project, configuration).showAndGet()) {
+                    configurations.repaint();
+                    markConfigurationsChanged();
+                }
+            }
+
+            @Override
+            public boolean isEnabled() {
+                return configuration != null;
+            }
+        });
 
         JPanel panel = new JPanel();
         panel.setLayout(new BorderLayout());
@@ -169,6 +350,8 @@ public class MultirunRunConfigurationEditor extends SettingsEditor<MultirunRunCo
         collectionsPanel.add(myDecoratorPanel);
 
         configurationsListChanged.setVisible(false);
+        stopOrder.setModel(new DefaultComboBoxModel(MultirunStopper.StopOrder.values()));
+        failurePolicy.setModel(new DefaultComboBoxModel(MultirunSession.FailurePolicy.values()));
 
         return myMainPanel;
     }
@@ -183,13 +366,68 @@ public class MultirunRunConfigurationEditor extends SettingsEditor<MultirunRunCo
     }
 
     private static class RunConfigurationListCellRenderer extends ListCellRendererWrapper<RunConfiguration> {
+
+        private final MultirunRunConfiguration configuration;
+
+        RunConfigurationListCellRenderer(MultirunRunConfiguration configuration) {
+            this.configuration = configuration;
+        }
+
         @Override
         public void customize(JList list, RunConfiguration data, int index, boolean selected, boolean hasFocus) {
             if (data != null) {
                 setIcon(data.getIcon());
-                setText("Run '" + data.getName() + "'");
+                final StringBuilder text = new StringBuilder("Run '" + data.getName() + "'");
+                if (configuration != null) {
+                    final LaunchStage stage = configuration.getStage(data);
+                    if (stage != null) {
+                        text.insert(0, "[" + stage.getName() + "] ");
+                    }
+                    final java.util.List<RunConfiguration> dependencies = configuration.getDependencies(data);
+                    for (int i = 0; i < dependencies.size(); i++) {
+                        text.append(i == 0 ? " after " : ", ").append('\'').append(dependencies.get(i).getName()).append('\'');
+                    }
+                    final ReadinessProbe readinessProbe = configuration.getReadinessProbe(data);
+                    if (!readinessProbe.isNone()) {
+                        text.append(", ready when ").append(readinessProbe.getType().toString().toLowerCase())
+                            .append(" '").append(readinessProbe.getValue()).append('\'');
+                    }
+                    final RestartPolicy restartPolicy = configuration.getRestartPolicy(data);
+                    if (restartPolicy.isEnabled()) {
+                        text.append(", ").append(restartPolicy);
+                    }
+                    final int shards = configuration.getShards(data);
+                    if (shards > 1) {
+                        text.append(", in ").append(shards).append(" shards");
+                    }
+                }
+                setText(text.toString());
+            }
+        }
+    }
+
+    /** Gets configurations that the specified configuration can depend on without making a cycle. */
+    private java.util.List<RunConfiguration> getDependencyCandidates(RunConfiguration target) {
+        final java.util.List<RunConfiguration> result = new ArrayList<RunConfiguration>();
+        for (int i = 0; i < configurations.getModel().getSize(); i++) {
+            final RunConfiguration each = (RunConfiguration) configurations.getModel().getElementAt(i);
+            if (!each.equals(target) && !dependsOn(each, target, new HashSet<RunConfiguration>())) {
+                result.add(each);
+            }
+        }
+        return result;
+    }
+
+    private boolean dependsOn(RunConfiguration configuration, RunConfiguration target, Set<RunConfiguration> visited) {
+        if (!visited.add(configuration)) {
+            return false;
+        }
+        for (RunConfiguration each : this.configuration.getDependencies(configuration)) {
+            if (each.equals(target) || dependsOn(each, target, visited)) {
+                return true;
             }
         }
+        return false;
     }
 
     private java.util.List<RunConfiguration> getConfigurationsToAdd() {
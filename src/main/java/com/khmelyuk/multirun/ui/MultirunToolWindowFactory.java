@@ -0,0 +1,30 @@
+package com.khmelyuk.multirun.ui;
+
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowFactory;
+import com.intellij.ui.content.Content;
+import com.intellij.ui.content.ContentFactory;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Creates the Multirun tool window with the details of recent multirun sessions.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class MultirunToolWindowFactory implements ToolWindowFactory, DumbAware {
+
+    @Override
+    public void createToolWindowContent(@NotNull Project project, @NotNull ToolWindow toolWindow) {
+        final LaunchTimelinePanel timelinePanel = new LaunchTimelinePanel(project);
+        final Content content = ContentFactory.SERVICE.getInstance().createContent(timelinePanel, "Launch Timeline", false);
+        content.setDisposer(timelinePanel);
+        toolWindow.getContentManager().addContent(content);
+
+        final ResourcesPanel resourcesPanel = new ResourcesPanel(project);
+        final Content resourcesContent = ContentFactory.SERVICE.getInstance().createContent(resourcesPanel, "Resources", false);
+        resourcesContent.setDisposer(resourcesPanel);
+        toolWindow.getContentManager().addContent(resourcesContent);
+    }
+}
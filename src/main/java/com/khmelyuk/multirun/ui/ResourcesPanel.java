@@ -0,0 +1,147 @@
+package com.khmelyuk.multirun.ui;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.ComboBox;
+import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.SimpleListCellRenderer;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.table.JBTable;
+import com.intellij.util.Alarm;
+import com.khmelyuk.multirun.MultirunSession;
+import com.khmelyuk.multirun.MultirunSessions;
+import com.khmelyuk.multirun.ResourceMonitor;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Shows CPU and memory used by the running configurations of recent multirun sessions,
+ * each counted together with its child processes.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class ResourcesPanel extends JPanel implements Disposable {
+
+    private static final int REFRESH_INTERVAL_MILLIS = 1000;
+
+    private final Project project;
+    private final ComboBox<MultirunSession> sessions = new ComboBox<>();
+    private final ResourcesTableModel tableModel = new ResourcesTableModel();
+    private final JBLabel status = new JBLabel();
+    private final Alarm refreshAlarm = new Alarm(Alarm.ThreadToUse.SWING_THREAD, this);
+
+    public ResourcesPanel(Project project) {
+        super(new BorderLayout());
+        this.project = project;
+
+        sessions.setRenderer(SimpleListCellRenderer.create("", session -> session.getName() + " at "
+                + new SimpleDateFormat("HH:mm:ss").format(new Date(session.getTimeline().getStartTime()))));
+        sessions.addActionListener(e -> refreshTable());
+
+        add(sessions, BorderLayout.NORTH);
+        add(ScrollPaneFactory.createScrollPane(new JBTable(tableModel)), BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+
+        MultirunSessions.getInstance(project).addChangeListener(this::refreshSessions, this);
+        refreshSessions();
+        scheduleRefresh();
+    }
+
+    /** Refreshes the table periodically, as the usage is sampled in background without notifying anyone. */
+    private void scheduleRefresh() {
+        if (!refreshAlarm.isDisposed()) {
+            refreshAlarm.addRequest(() -> {
+                refreshTable();
+                scheduleRefresh();
+            }, REFRESH_INTERVAL_MILLIS);
+        }
+    }
+
+    private void refreshSessions() {
+        final List<MultirunSession> recentSessions = MultirunSessions.getInstance(project).getRecentSessions();
+        final Object selected = sessions.getSelectedItem();
+        final boolean latestSelected = selected == null || sessions.getItemCount() == 0 || selected == sessions.getItemAt(0);
+
+        sessions.setModel(new DefaultComboBoxModel<>(recentSessions.toArray(new MultirunSession[0])));
+        if (!recentSessions.isEmpty()) {
+            // follow the new session, unless user chose an older one
+            sessions.setSelectedItem(latestSelected || !recentSessions.contains(selected) ? recentSessions.get(0) : selected);
+        }
+        refreshTable();
+    }
+
+    private void refreshTable() {
+        final MultirunSession session = (MultirunSession) sessions.getSelectedItem();
+        final ResourceMonitor monitor = session != null ? session.getResourceMonitor() : null;
+        if (session == null) {
+            status.setText("");
+        } else if (monitor == null) {
+            status.setText("Resources are not monitored for this session. "
+                                   + "Enable \"Show CPU and memory of processes\" in the multirun configuration.");
+        } else if (session.getTermination().isDone()) {
+            status.setText("Session has finished.");
+        } else {
+            status.setText(String.format("Updated every %.1f s.", monitor.getIntervalMillis() / 1000.0));
+        }
+        tableModel.setUsages(monitor != null && !session.getTermination().isDone()
+                                     ? monitor.getUsages()
+                                     : Collections.<ResourceMonitor.Usage>emptyList());
+    }
+
+    @Override
+    public void dispose() {
+    }
+
+    private static class ResourcesTableModel extends AbstractTableModel {
+
+        private static final String[] COLUMNS = {"Configuration", "PID", "CPU", "Memory", "Peak Memory"};
+
+        private List<ResourceMonitor.Usage> usages = new ArrayList<>();
+
+        void setUsages(List<ResourceMonitor.Usage> usages) {
+            if (this.usages != usages) {
+                this.usages = usages;
+                fireTableDataChanged();
+            }
+        }
+
+        @Override
+        public int getRowCount() {
+            return usages.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            final ResourceMonitor.Usage usage = usages.get(row);
+            switch (column) {
+                case 1:
+                    return usage.getPid() >= 0 ? String.valueOf(usage.getPid()) : "";
+                case 2:
+                    return String.format("%.0f%%", usage.getCpu());
+                case 3:
+                    return usage.getRss() >= 0 ? ResourceMonitor.formatBytes(usage.getRss()) : "";
+                case 4:
+                    return usage.getPeakRss() >= 0 ? ResourceMonitor.formatBytes(usage.getPeakRss()) : "";
+                default:
+                    return usage.getName();
+            }
+        }
+    }
+}
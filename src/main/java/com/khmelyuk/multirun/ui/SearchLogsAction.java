@@ -0,0 +1,35 @@
+package com.khmelyuk.multirun.ui;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.project.Project;
+import com.khmelyuk.multirun.SessionLogs;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The action of multirun tab to search and view the captured logs of the session processes.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class SearchLogsAction extends AnAction {
+
+    private final Project project;
+    private final SessionLogs logs;
+
+    public SearchLogsAction(Project project, SessionLogs logs) {
+        super("Search Logs", "Search and view the captured logs of all configurations", AllIcons.Actions.Find);
+        this.project = project;
+        this.logs = logs;
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        e.getPresentation().setEnabled(!logs.getLogs().isEmpty());
+    }
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        new LogSearchDialog(project, logs).show();
+    }
+}
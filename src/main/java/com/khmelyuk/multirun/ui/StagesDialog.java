@@ -0,0 +1,221 @@
+package com.khmelyuk.multirun.ui;
+
+import com.intellij.execution.configurations.RunConfiguration;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.ComboBox;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.ui.ValidationInfo;
+import com.intellij.ui.ToolbarDecorator;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.table.JBTable;
+import com.intellij.util.ui.EditableModel;
+import com.intellij.util.ui.JBUI;
+import com.khmelyuk.multirun.LaunchStage;
+import com.khmelyuk.multirun.MultirunRunConfiguration;
+import com.khmelyuk.multirun.MultirunSession;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dialog to edit the stages of multirun configuration, in the order they are started.
+ * Configurations keep their stage when it's renamed or moved, and go to the first stage when it's removed.
+ *
+ * @author Ruslan Khmelyuk
+ */
+public class StagesDialog extends DialogWrapper {
+
+    private final MultirunRunConfiguration configuration;
+    private final StagesTableModel model = new StagesTableModel();
+    private final JBTable table = new JBTable(model);
+
+    public StagesDialog(Project project, MultirunRunConfiguration configuration) {
+        super(project);
+        this.configuration = configuration;
+
+        setTitle("Stages of '" + configuration.getName() + "'");
+        for (LaunchStage each : configuration.getStages()) {
+            model.rows.add(new StageRow(each.getName(), each.getName(), each.getTimeout(), each.getFailurePolicy()));
+        }
+        table.getColumnModel().getColumn(2).setCellEditor(
+                new DefaultCellEditor(new ComboBox<>(MultirunSession.FailurePolicy.values())));
+        init();
+    }
+
+    @Nullable
+    @Override
+    protected JComponent createCenterPanel() {
+        final JPanel panel = new JPanel(new BorderLayout(0, JBUI.scale(8)));
+        panel.add(ToolbarDecorator.createDecorator(table).createPanel(), BorderLayout.CENTER);
+        panel.add(new JBLabel("Configurations of each stage start at once. The next stage starts when all of them are ready, "
+                                      + "or the timeout expires. Timeout 0 means no limit."),
+                  BorderLayout.SOUTH);
+        panel.setPreferredSize(JBUI.size(600, 250));
+        return panel;
+    }
+
+    @Nullable
+    @Override
+    protected ValidationInfo doValidate() {
+        if (table.isEditing()) {
+            table.getCellEditor().stopCellEditing();
+        }
+        final Set<String> names = new HashSet<String>();
+        for (StageRow each : model.rows) {
+            final String problem = each.toStage().validate();
+            if (problem != null) {
+                return new ValidationInfo(problem, table);
+            }
+            if (!names.add(each.name.trim())) {
+                return new ValidationInfo("Stage '" + each.name.trim() + "' is defined twice", table);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected void doOKAction() {
+        // remember the stage of each configuration by the stage name before editing
+        final Map<RunConfiguration, String> entryStages = new HashMap<RunConfiguration, String>();
+        for (RunConfiguration each : configuration.getRunConfigurations()) {
+            final LaunchStage stage = configuration.getStage(each);
+            if (stage != null) {
+                entryStages.put(each, stage.getName());
+            }
+        }
+
+        final List<LaunchStage> stages = new ArrayList<LaunchStage>();
+        final Map<String, LaunchStage> renamed = new HashMap<String, LaunchStage>();
+        for (StageRow each : model.rows) {
+            final LaunchStage stage = each.toStage();
+            stages.add(stage);
+            if (each.originalName != null) {
+                renamed.put(each.originalName, stage);
+            }
+        }
+        configuration.setStages(stages);
+        for (Map.Entry<RunConfiguration, String> entry : entryStages.entrySet()) {
+            configuration.setStage(entry.getKey(), renamed.get(entry.getValue()));
+        }
+        super.doOKAction();
+    }
+
+    private static class StageRow {
+        // name of the stage before editing, or null if the stage is new
+        final String originalName;
+        String name;
+        double timeout;
+        MultirunSession.FailurePolicy failurePolicy;
+
+        StageRow(String originalName, String name, double timeout, MultirunSession.FailurePolicy failurePolicy) {
+            this.originalName = originalName;
+            this.name = name;
+            this.timeout = timeout;
+            this.failurePolicy = failurePolicy;
+        }
+
+        LaunchStage toStage() {
+            return new LaunchStage(name.trim(), timeout, failurePolicy);
+        }
+    }
+
+    private static class StagesTableModel extends AbstractTableModel implements EditableModel {
+        private static final String[] COLUMNS = {"Stage", "Timeout (s)", "On failure"};
+
+        final List<StageRow> rows = new ArrayList<StageRow>();
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            switch (column) {
+                case 1:
+                    return Double.class;
+                case 2:
+                    return MultirunSession.FailurePolicy.class;
+                default:
+                    return String.class;
+            }
+        }
+
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return true;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            final StageRow stage = rows.get(row);
+            switch (column) {
+                case 1:
+                    return stage.timeout;
+                case 2:
+                    return stage.failurePolicy;
+                default:
+                    return stage.name;
+            }
+        }
+
+        @Override
+        public void setValueAt(Object value, int row, int column) {
+            final StageRow stage = rows.get(row);
+            switch (column) {
+                case 1:
+                    stage.timeout = value instanceof Number ? ((Number) value).doubleValue() : 0;
+                    break;
+                case 2:
+                    stage.failurePolicy = value instanceof MultirunSession.FailurePolicy
+                            ? (MultirunSession.FailurePolicy) value
+                            : MultirunSession.FailurePolicy.CONTINUE;
+                    break;
+                default:
+                    stage.name = value != null ? value.toString() : "";
+            }
+            fireTableCellUpdated(row, column);
+        }
+
+        @Override
+        public void addRow() {
+            rows.add(new StageRow(null, "stage " + (rows.size() + 1), 0, MultirunSession.FailurePolicy.STOP_LAUNCHING));
+            fireTableRowsInserted(rows.size() - 1, rows.size() - 1);
+        }
+
+        @Override
+        public void removeRow(int index) {
+            rows.remove(index);
+            fireTableRowsDeleted(index, index);
+        }
+
+        @Override
+        public void exchangeRows(int oldIndex, int newIndex) {
+            rows.add(newIndex, rows.remove(oldIndex));
+            fireTableRowsUpdated(Math.min(oldIndex, newIndex), Math.max(oldIndex, newIndex));
+        }
+
+        @Override
+        public boolean canExchangeRows(int oldIndex, int newIndex) {
+            return true;
+        }
+    }
+}
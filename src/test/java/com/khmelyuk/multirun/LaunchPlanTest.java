@@ -0,0 +1,88 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.configurations.RunConfiguration;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ruslan Khmelyuk
+ */
+public class LaunchPlanTest {
+
+    @Test
+    public void emptyPlan() throws ExecutionException {
+        final LaunchPlan plan = LaunchPlan.build(Collections.<RunConfiguration>emptyList(),
+                                                 Collections.<RunConfiguration, List<RunConfiguration>>emptyMap(), false);
+
+        assertTrue(plan.isEmpty());
+        assertEquals(0, plan.size());
+        assertTrue(plan.getRoots().isEmpty());
+    }
+
+    @Test
+    public void allAtOnceStartsEachConfigurationAsRoot() throws ExecutionException {
+        final List<RunConfiguration> configurations = RunConfigurationStubs.create("a", "b", "c");
+
+        final LaunchPlan plan = LaunchPlan.build(configurations,
+                                                 Collections.<RunConfiguration, List<RunConfiguration>>emptyMap(), false);
+
+        assertEquals(3, plan.size());
+        assertEquals(3, plan.getRoots().size());
+        for (LaunchPlan.Node each : plan.getNodes()) {
+            assertTrue(each.getDependencies().isEmpty());
+        }
+    }
+
+    @Test
+    public void oneByOneDependsOnPrevious() throws ExecutionException {
+        final List<RunConfiguration> configurations = RunConfigurationStubs.create("a", "b", "c");
+
+        final LaunchPlan plan = LaunchPlan.build(configurations,
+                                                 Collections.<RunConfiguration, List<RunConfiguration>>emptyMap(), true);
+
+        final List<LaunchPlan.Node> nodes = plan.getNodes();
+        assertEquals(Collections.singletonList(nodes.get(0)), plan.getRoots());
+        assertEquals(Collections.singletonList(nodes.get(0)), nodes.get(1).getDependencies());
+        assertEquals(Collections.singletonList(nodes.get(1)), nodes.get(2).getDependencies());
+        assertEquals(Collections.singletonList(nodes.get(2)), nodes.get(1).getDependents());
+    }
+
+    @Test
+    public void declaredDependenciesReplaceOneByOne() throws ExecutionException {
+        final List<RunConfiguration> configurations = RunConfigurationStubs.create("a", "b", "c");
+        final Map<RunConfiguration, List<RunConfiguration>> dependencies = new HashMap<>();
+        dependencies.put(configurations.get(0), Collections.singletonList(configurations.get(2)));
+
+        final LaunchPlan plan = LaunchPlan.build(configurations, dependencies, true);
+
+        final List<LaunchPlan.Node> nodes = plan.getNodes();
+        assertEquals(2, plan.getRoots().size());
+        assertTrue(plan.getRoots().contains(nodes.get(1)));
+        assertTrue(plan.getRoots().contains(nodes.get(2)));
+        assertEquals(Collections.singletonList(nodes.get(2)), nodes.get(0).getDependencies());
+    }
+
+    @Test
+    public void cycleIsRejected() {
+        final List<RunConfiguration> configurations = RunConfigurationStubs.create("a", "b", "c");
+        final Map<RunConfiguration, List<RunConfiguration>> dependencies = new HashMap<>();
+        dependencies.put(configurations.get(0), Collections.singletonList(configurations.get(1)));
+        dependencies.put(configurations.get(1), Collections.singletonList(configurations.get(0)));
+
+        try {
+            LaunchPlan.build(configurations, dependencies, false);
+            fail("cycle is not detected");
+        } catch (ExecutionException e) {
+            assertEquals("Run configurations depend on each other: 'a', 'b'", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.configurations.RunConfiguration;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Ruslan Khmelyuk
+ */
+public class LaunchSchedulerTest {
+
+    private final List<LaunchPlan.Node> launched = new ArrayList<>();
+    private final AtomicInteger allReleased = new AtomicInteger();
+
+    private static LaunchPlan plan(boolean startOneByOne, String... names) throws ExecutionException {
+        return LaunchPlan.build(RunConfigurationStubs.create(names),
+                                Collections.<RunConfiguration, List<RunConfiguration>>emptyMap(), startOneByOne);
+    }
+
+    private LaunchScheduler scheduler(LaunchPlan plan, int maxConcurrentStarting) {
+        return new LaunchScheduler(plan, maxConcurrentStarting, Runnable::run, launched::add, allReleased::incrementAndGet);
+    }
+
+    @Test
+    public void emptyPlanIsReleasedOnStart() throws ExecutionException {
+        scheduler(plan(false), 1).start();
+
+        assertTrue(launched.isEmpty());
+        assertEquals(1, allReleased.get());
+    }
+
+    @Test
+    public void noMoreThanAllowedNodesAreStarting() throws ExecutionException {
+        final LaunchPlan plan = plan(false, "a", "b", "c");
+        final List<LaunchPlan.Node> nodes = plan.getNodes();
+        final LaunchScheduler scheduler = scheduler(plan, 2);
+
+        scheduler.start();
+        assertEquals(Arrays.asList(nodes.get(0), nodes.get(1)), launched);
+        assertFalse(scheduler.isDispatched(nodes.get(2)));
+
+        scheduler.doneStarting(nodes.get(0));
+        assertEquals(nodes, launched);
+
+        for (LaunchPlan.Node each : nodes) {
+            scheduler.release(each);
+        }
+        assertEquals(1, allReleased.get());
+    }
+
+    @Test
+    public void dependentIsStartedWhenDependencyIsReleased() throws ExecutionException {
+        final LaunchPlan plan = plan(true, "a", "b");
+        final List<LaunchPlan.Node> nodes = plan.getNodes();
+        final LaunchScheduler scheduler = scheduler(plan, 0);
+
+        scheduler.start();
+        scheduler.doneStarting(nodes.get(0));
+        assertEquals(Collections.singletonList(nodes.get(0)), launched);
+
+        scheduler.release(nodes.get(0));
+        assertEquals(nodes, launched);
+        assertEquals(0, allReleased.get());
+
+        scheduler.release(nodes.get(1));
+        scheduler.release(nodes.get(1));
+        assertEquals(1, allReleased.get());
+    }
+
+    @Test
+    public void cancelledSchedulerDispatchesWaitingNodes() throws ExecutionException {
+        final LaunchPlan plan = plan(false, "a", "b", "c");
+        final LaunchScheduler scheduler = scheduler(plan, 1);
+
+        scheduler.start();
+        assertEquals(1, launched.size());
+
+        scheduler.cancel();
+        assertEquals(plan.getNodes(), launched);
+
+        for (LaunchPlan.Node each : plan.getNodes()) {
+            scheduler.release(each);
+        }
+        assertEquals(1, allReleased.get());
+    }
+
+    @Test
+    public void cancelledSchedulerReleasesEveryNode() throws ExecutionException {
+        final LaunchPlan plan = plan(true, "a", "b", "c");
+        final List<LaunchPlan.Node> nodes = plan.getNodes();
+        final AtomicInteger cancelled = new AtomicInteger();
+        final LaunchScheduler[] scheduler = new LaunchScheduler[1];
+        // the launcher releases the nodes without launching them once the launch is cancelled
+        scheduler[0] = new LaunchScheduler(plan, 1, Runnable::run, node -> {
+            launched.add(node);
+            if (cancelled.get() > 0) {
+                scheduler[0].release(node);
+            }
+        }, allReleased::incrementAndGet);
+
+        scheduler[0].start();
+        cancelled.incrementAndGet();
+        scheduler[0].cancel();
+        assertEquals(Collections.singletonList(nodes.get(0)), launched);
+
+        scheduler[0].release(nodes.get(0));
+        assertEquals(nodes, launched);
+        for (LaunchPlan.Node each : nodes) {
+            assertTrue(scheduler[0].isReleased(each));
+        }
+        assertEquals(1, allReleased.get());
+    }
+}
@@ -0,0 +1,46 @@
+package com.khmelyuk.multirun;
+
+import com.intellij.execution.configurations.RunConfiguration;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates run configurations for tests, as there is no run manager outside of IDE.
+ * Only the name of the configurations is available.
+ *
+ * @author Ruslan Khmelyuk
+ */
+final class RunConfigurationStubs {
+
+    private RunConfigurationStubs() {
+    }
+
+    static List<RunConfiguration> create(String... names) {
+        final List<RunConfiguration> result = new ArrayList<>(names.length);
+        for (String each : names) {
+            result.add(configuration(each));
+        }
+        return result;
+    }
+
+    static RunConfiguration configuration(String name) {
+        return (RunConfiguration) Proxy.newProxyInstance(
+                RunConfigurationStubs.class.getClassLoader(),
+                new Class<?>[]{RunConfiguration.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getName":
+                        case "toString":
+                            return name;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
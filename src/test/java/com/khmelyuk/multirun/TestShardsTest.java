@@ -0,0 +1,88 @@
+package com.khmelyuk.multirun;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Ruslan Khmelyuk
+ */
+public class TestShardsTest {
+
+    private static final long UNKNOWN = -1;
+
+    @Test
+    public void emptyInputHasNoShards() {
+        assertTrue(TestShards.split(Collections.<String>emptyList(), 3, each -> 10).isEmpty());
+    }
+
+    @Test
+    public void moreShardsThanClassesLeavesShardsEmpty() {
+        final List<List<String>> shards = TestShards.split(Arrays.asList("a.ATest", "b.BTest"), 4, each -> 10);
+
+        assertEquals(4, shards.size());
+        int nonEmpty = 0;
+        final List<String> all = new ArrayList<>();
+        for (List<String> each : shards) {
+            assertTrue(each.size() <= 1);
+            if (!each.isEmpty()) {
+                nonEmpty++;
+            }
+            all.addAll(each);
+        }
+        assertEquals(2, nonEmpty);
+        Collections.sort(all);
+        assertEquals(Arrays.asList("a.ATest", "b.BTest"), all);
+    }
+
+    @Test
+    public void unknownDurationsAreSplitByNameHash() {
+        final List<String> classes = Arrays.asList("a.ATest", "b.BTest", "c.CTest", "d.DTest", "e.ETest");
+
+        final List<List<String>> shards = TestShards.split(classes, 3, each -> UNKNOWN);
+
+        assertEquals(3, shards.size());
+        for (String each : classes) {
+            assertTrue(each, shards.get(Math.floorMod(each.hashCode(), 3)).contains(each));
+        }
+        // the split of a class doesn't depend on other classes
+        final List<List<String>> fewer = TestShards.split(classes.subList(0, 2), 3, each -> UNKNOWN);
+        for (String each : classes.subList(0, 2)) {
+            assertTrue(each, fewer.get(Math.floorMod(each.hashCode(), 3)).contains(each));
+        }
+    }
+
+    @Test
+    public void knownDurationsAreBalanced() {
+        final Map<String, Long> durations = new HashMap<>();
+        durations.put("A", 100L);
+        durations.put("B", 60L);
+        durations.put("C", 50L);
+        durations.put("D", 10L);
+
+        final List<List<String>> shards = TestShards.split(Arrays.asList("D", "C", "B", "A"), 2, durations::get);
+
+        assertEquals(Arrays.asList(Arrays.asList("A", "D"), Arrays.asList("B", "C")), shards);
+    }
+
+    @Test
+    public void unknownDurationIsAverageOfKnownOnes() {
+        final Map<String, Long> durations = new HashMap<>();
+        durations.put("A", 100L);
+        durations.put("B", 20L);
+        durations.put("C", UNKNOWN);
+
+        // C is expected to take 60, so it goes with B rather than with A
+        final List<List<String>> shards = TestShards.split(Arrays.asList("A", "B", "C"), 2, durations::get);
+
+        assertEquals(Arrays.asList(Collections.singletonList("A"), Arrays.asList("B", "C")), shards);
+    }
+}